@@ -0,0 +1,97 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.BlockingRepositoryFetcher;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.RepositoryFetcher;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * The reactive REST engine and the blocking engine on virtual threads side by side: {@value #USERS} users
+ * fetched at once from an in-process GitHub stub, each with 20 repositories of 3 branches besides 20 forks,
+ * so 21 upstream calls per user. Both engines share the rate-limit scheduler, token pool and upstream
+ * permits, as they do in the application.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FetchEngineBenchmark {
+
+    private static final int USERS = 20;
+
+    @Param({"rest", "blocking"})
+    private String engine;
+
+    private GithubStubServer github;
+    private RepositoryFetcher fetcher;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        github = new GithubStubServer();
+        IntStream.range(0, USERS).forEach(i -> github.withUser("user" + i, 40, 3));
+        RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(50, 500, Duration.ofSeconds(10));
+        GithubTokenPool githubTokenPool = new GithubTokenPool(List.of("token1", "token2"));
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        if (engine.equals("rest")) {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(github.baseUrl())
+                    .filter(rateLimitScheduler)
+                    .filter(githubTokenPool)
+                    .build();
+            fetcher = new RestRepositoryFetcher(new GithubPaginator(webClient, concurrencyGovernor, 100, 4),
+                    concurrencyGovernor);
+        } else {
+            RestClient restClient = RestClient.builder()
+                    .baseUrl(github.baseUrl())
+                    .requestFactory(new JdkClientHttpRequestFactory())
+                    .requestInterceptor(rateLimitScheduler)
+                    .requestInterceptor(githubTokenPool)
+                    .build();
+            fetcher = new BlockingRepositoryFetcher(restClient, concurrencyGovernor, 100);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (fetcher instanceof BlockingRepositoryFetcher blockingFetcher) {
+            blockingFetcher.destroy();
+        }
+        github.close();
+    }
+
+    @Benchmark
+    public List<List<RepositoryDetails>> fetchAllUsers() {
+        return Flux.range(0, USERS)
+                .flatMap(i -> fetcher.fetchRepositories("user" + i, false).collectList())
+                .collectList()
+                .block();
+    }
+}
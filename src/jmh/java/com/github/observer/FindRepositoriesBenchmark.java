@@ -0,0 +1,94 @@
+package com.github.observer;
+
+import com.github.observer.client.ConditionalRequestCache;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.NegativeResultCache;
+import com.github.observer.service.ObserverService;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link ObserverService#findRepositories} end to end, from the service through the fetcher, the client
+ * filters and the decoder to an in-process GitHub stub serving full-size payloads over HTTP. Every
+ * invocation misses the result cache, so each one pays for the whole fan-out of listing and branch
+ * requests the sizes below imply.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FindRepositoriesBenchmark {
+
+    private static final String USERNAME = "octocat";
+
+    @Param({"1", "10", "100", "1000"})
+    private int repositories;
+
+    @Param({"1", "20", "200"})
+    private int branches;
+
+    private GithubStubServer github;
+    private StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache;
+    private ObserverService observerService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // every other stub repository is a fork, so this leaves exactly `repositories` to list branches for
+        github = new GithubStubServer()
+                .withRealisticPayloads()
+                .withUser(USERNAME, repositories * 2, branches);
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        WebClient webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .codecs(codecs -> codecs.customCodecs().register(new GithubJsonDecoder()))
+                .filter(new ConditionalRequestCache(1000, Duration.ofMinutes(10)))
+                .filter(new RateLimitScheduler(50, 500, Duration.ofSeconds(10)))
+                .filter(new GithubTokenPool(List.of("token")))
+                .build();
+        repositoryDetailsCache = new StaleWhileRevalidateCache<>(10, Duration.ofMinutes(5), Duration.ofHours(1));
+        observerService = new ObserverService(
+                new RestRepositoryFetcher(new GithubPaginator(webClient, concurrencyGovernor, 100, 4),
+                        concurrencyGovernor),
+                repositoryDetailsCache,
+                new NegativeResultCache(100, Duration.ofMinutes(1)),
+                new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        github.close();
+    }
+
+    @Benchmark
+    public List<RepositoryDetails> findRepositories() {
+        repositoryDetailsCache.invalidate(USERNAME + ":false");
+        return observerService.findRepositories(USERNAME, false).block();
+    }
+}
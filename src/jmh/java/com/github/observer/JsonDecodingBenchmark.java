@@ -0,0 +1,91 @@
+package com.github.observer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.model.Branch;
+import com.github.observer.model.Repository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Decoding of one full page of GitHub repositories and of branches, delivered in 8 KB buffers as
+ * they arrive from the network, with Spring's Jackson decoder and with {@link GithubJsonDecoder}.
+ * Run with {@code -prof gc} to compare the bytes each decoder allocates per page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JsonDecodingBenchmark {
+
+    private static final ResolvableType REPOSITORY = ResolvableType.forClass(Repository.class);
+    private static final ResolvableType BRANCH = ResolvableType.forClass(Branch.class);
+    private static final int PAGE_SIZE = 100;
+
+    @Param({"jackson", "streaming"})
+    private String decoder;
+
+    private Decoder<?> selectedDecoder;
+    private List<byte[]> repositoryPage;
+    private List<byte[]> branchPage;
+
+    @Setup
+    public void setUp() throws Exception {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        selectedDecoder = decoder.equals("jackson") ? new Jackson2JsonDecoder(objectMapper) : new GithubJsonDecoder();
+        repositoryPage = chunks(objectMapper.writeValueAsBytes(IntStream.range(0, PAGE_SIZE)
+                .mapToObj(i -> GithubPayloads.repository("octocat", "repo" + i, i % 2 == 1))
+                .toList()));
+        branchPage = chunks(objectMapper.writeValueAsBytes(IntStream.range(0, PAGE_SIZE)
+                .mapToObj(i -> GithubPayloads.branch("octocat", "repo", "branch" + i, Integer.toHexString(i)))
+                .toList()));
+    }
+
+    @Benchmark
+    public List<?> decodeRepositories() {
+        return decode(repositoryPage, REPOSITORY);
+    }
+
+    @Benchmark
+    public List<?> decodeBranches() {
+        return decode(branchPage, BRANCH);
+    }
+
+    private List<?> decode(List<byte[]> chunks, ResolvableType type) {
+        return selectedDecoder.decode(Flux.fromIterable(chunks).map(DefaultDataBufferFactory.sharedInstance::wrap),
+                        type, MediaType.APPLICATION_JSON, Map.of())
+                .collectList()
+                .block();
+    }
+
+    private static List<byte[]> chunks(byte[] json) {
+        int chunkSize = 8192;
+        return IntStream.range(0, (json.length + chunkSize - 1) / chunkSize)
+                .mapToObj(i -> Arrays.copyOfRange(json, i * chunkSize, Math.min(json.length, (i + 1) * chunkSize)))
+                .toList();
+    }
+}
@@ -0,0 +1,65 @@
+package com.github.observer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.observer.controller.EncodedResponseCache;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.RepositoryDetails;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Serialization of the {@code /repositories/{username}} response body with the application's
+ * Jackson configuration, against serving it from {@link EncodedResponseCache} on a result-cache hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseSerializationBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    private int repositories;
+
+    @Param({"1", "20", "200"})
+    private int branches;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private List<RepositoryDetails> response;
+    private EncodedResponseCache encodedResponseCache;
+
+    @Setup
+    public void setUp() {
+        response = IntStream.range(0, repositories)
+                .mapToObj(i -> new RepositoryDetails("repo" + i, "octocat", IntStream.range(0, branches)
+                        .mapToObj(b -> new BranchDetails("branch" + b, Integer.toHexString(("repo" + i + b).hashCode())))
+                        .toList()))
+                .toList();
+        encodedResponseCache = new EncodedResponseCache(objectMapper, 1, 2048);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws Exception {
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] encodedResponseCacheHit() {
+        return encodedResponseCache.get("octocat:false", response).json();
+    }
+}
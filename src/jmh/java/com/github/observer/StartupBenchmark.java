@@ -0,0 +1,78 @@
+package com.github.observer;
+
+import com.amazonaws.serverless.proxy.internal.testutils.AwsProxyRequestBuilder;
+import com.amazonaws.serverless.proxy.internal.testutils.MockLambdaContext;
+import com.amazonaws.serverless.proxy.model.AwsProxyResponse;
+import org.crac.CheckpointException;
+import org.crac.Core;
+import org.crac.RestoreException;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * Lambda cold start, measured in one process: from JVM start to a ready {@link LambdaHandler}, then the
+ * first and second {@code GET /repositories/{username}/false} through it, the second being a result-cache
+ * hit. GithubStubServer stands in for GitHub on a fixed port. This is the baseline.
+ * <p>
+ * On a CRaC-enabled JDK, {@code -Dstartup.checkpoint=true} with {@code -XX:CRaCCheckpointTo=<dir>} then
+ * takes a checkpoint, which runs {@link CheckpointPriming}. Restoring with
+ * {@code java -XX:CRaCRestoreFrom=<dir>} continues here and times the same two requests, for a user not
+ * seen before the checkpoint, from the moment of restore: what a SnapStart invocation pays once its
+ * snapshot is resumed.
+ */
+public class StartupBenchmark {
+
+    private static final int GITHUB_PORT = Integer.getInteger("startup.github-port", 18091);
+    private static final String USERNAME = "octocat";
+    private static final String RESTORED_USERNAME = "hubot";
+
+    public static void main(String[] args) throws Exception {
+        long jvmStart = ManagementFactory.getRuntimeMXBean().getStartTime();
+        GithubStubServer github = github();
+        System.setProperty("observer.baseUrl", github.baseUrl());
+        System.setProperty("observer.github.tokens", "token");
+
+        LambdaHandler handler = new LambdaHandler();
+        report("handler ready", jvmStart);
+        request(handler, "first response", USERNAME, jvmStart);
+        request(handler, "second response", USERNAME, jvmStart);
+        github.close();
+        if (!Boolean.getBoolean("startup.checkpoint")) {
+            System.exit(0);
+        }
+
+        try {
+            Core.checkpointRestore();
+        } catch (CheckpointException | RestoreException | UnsupportedOperationException e) {
+            System.err.println("Checkpoint failed, run on a CRaC-enabled JDK with -XX:CRaCCheckpointTo=<dir>: " + e);
+            System.exit(1);
+        }
+        long restored = System.currentTimeMillis();
+        github = github();
+        report("restored", restored);
+        request(handler, "first response after restore", RESTORED_USERNAME, restored);
+        request(handler, "second response after restore", RESTORED_USERNAME, restored);
+        github.close();
+        System.exit(0);
+    }
+
+    private static GithubStubServer github() {
+        return new GithubStubServer(GITHUB_PORT)
+                .withUser(USERNAME, 20, 5)
+                .withUser(RESTORED_USERNAME, 20, 5);
+    }
+
+    private static void request(LambdaHandler handler, String label, String username, long since) {
+        AwsProxyResponse response = handler.handleRequest(
+                new AwsProxyRequestBuilder("/repositories/" + username + "/false", "GET").build(),
+                new MockLambdaContext());
+        if (response.getStatusCode() != 200) {
+            throw new IllegalStateException(label + " returned " + response.getStatusCode() + ": " + response.getBody());
+        }
+        report(label, since);
+    }
+
+    private static void report(String label, long since) {
+        System.out.printf("%-32s %6d ms%n", label, System.currentTimeMillis() - since);
+    }
+}
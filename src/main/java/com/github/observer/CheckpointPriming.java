@@ -0,0 +1,144 @@
+package com.github.observer;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.observer.client.GithubHttpClient;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.NegativeResultCache;
+import com.github.observer.service.ObserverService;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.crac.Context;
+import org.crac.Core;
+import org.crac.Resource;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Warms the request path before a CRaC checkpoint or Lambda SnapStart snapshot, so a restored instance
+ * does not pay for class loading and first-call initialization on its first request. The full
+ * {@code findRepositories} pipeline runs once, through the application's {@code WebClient} filters and
+ * codecs, against canned GitHub responses: no network call is made, and the priming user's result stays
+ * out of the application's caches and fetch metrics. Jackson serialization of the response and Reactor
+ * Netty's event loops, native transport and resolver, both the shared ones and those of
+ * {@link GithubHttpClient}, are warmed as well.
+ * <p>
+ * Network state itself is not part of the snapshot: Spring stops its lifecycle beans on checkpoint, which
+ * closes pooled connections and event loops, and starts them again on restore. This resource registers
+ * itself once the context is refreshed, after Spring's own, so it runs before them on checkpoint and after
+ * them on restore.
+ */
+@Slf4j
+@Component
+public class CheckpointPriming implements Resource {
+
+    static final String PRIMING_USER = "observer-priming";
+
+    private static final String REPOSITORIES = "[{\"name\":\"priming\",\"owner\":{\"login\":\"" + PRIMING_USER
+            + "\"},\"fork\":false}]";
+    private static final String BRANCHES = "[{\"name\":\"main\",\"commit\":{\"sha\":\"0000000\"}}]";
+
+    private final WebClient observerWebClient;
+    private final GithubHttpClient githubHttpClient;
+    private final GithubJsonDecoder githubJsonDecoder;
+    private final ObjectMapper objectMapper;
+    private final AtomicBoolean registered = new AtomicBoolean();
+
+    public CheckpointPriming(WebClient observerWebClient, GithubHttpClient githubHttpClient,
+                             GithubJsonDecoder githubJsonDecoder, ObjectMapper objectMapper) {
+        this.observerWebClient = observerWebClient;
+        this.githubHttpClient = githubHttpClient;
+        this.githubJsonDecoder = githubJsonDecoder;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void register() {
+        if (registered.compareAndSet(false, true)) {
+            Core.getGlobalContext().register(this);
+        }
+    }
+
+    @Override
+    public void beforeCheckpoint(Context<? extends Resource> context) {
+        long start = System.nanoTime();
+        try {
+            prime();
+            log.info("Primed the request path for checkpoint in {} ms", (System.nanoTime() - start) / 1_000_000);
+        } catch (RuntimeException e) {
+            log.warn("Priming before checkpoint failed, the snapshot is taken unprimed", e);
+        }
+    }
+
+    @Override
+    public void afterRestore(Context<? extends Resource> context) {
+        // the event loops were recreated by the restarted lifecycle beans; bring them up before the first request
+        HttpClient.create().warmup().block();
+        githubHttpClient.warmup();
+        log.info("Restored from checkpoint");
+    }
+
+    void prime() {
+        HttpClient.create().warmup().block();
+        githubHttpClient.warmup();
+        List<RepositoryDetails> repositories = primingService().findRepositories(PRIMING_USER, false).block();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(repositories);
+            objectMapper.readValue(json, new TypeReference<List<RepositoryDetails>>() {
+            });
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * An {@link ObserverService} with its own caches and metrics over the application's {@code WebClient},
+     * whose requests are answered in memory.
+     */
+    private ObserverService primingService() {
+        ExchangeStrategies strategies = ExchangeStrategies.builder()
+                .codecs(codecs -> codecs.customCodecs().register(githubJsonDecoder))
+                .build();
+        WebClient primingClient = observerWebClient.mutate()
+                .exchangeFunction(request -> Mono.just(respond(request, strategies)))
+                .observationRegistry(ObservationRegistry.NOOP)
+                .build();
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(1, 1);
+        return new ObserverService(
+                new RestRepositoryFetcher(new GithubPaginator(primingClient, governor, 100, 1), governor),
+                new StaleWhileRevalidateCache<>(1, Duration.ZERO, Duration.ZERO),
+                new NegativeResultCache(1, Duration.ZERO, Clock.systemUTC()),
+                new PipelineMetrics(new SimpleMeterRegistry()));
+    }
+
+    private static ClientResponse respond(ClientRequest request, ExchangeStrategies strategies) {
+        String body = request.url().getPath().endsWith("/branches") ? BRANCHES : REPOSITORIES;
+        return ClientResponse.create(HttpStatus.OK, strategies)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+    }
+}
@@ -1,24 +1,89 @@
 package com.github.observer;
 
+import com.github.observer.client.AdaptiveTimeouts;
+import com.github.observer.client.ConditionalRequestCache;
+import com.github.observer.client.GithubHttpClient;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.snapshot.RepositoryDetailsCodec;
+import com.github.observer.snapshot.SnapshotStore;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
 import org.springframework.web.reactive.function.client.WebClient;
 
+import java.net.http.HttpClient;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executors;
+
 @Configuration
+@ImportRuntimeHints(ObserverRuntimeHints.class)
 public class ObserverConfiguration {
 
     @Value("${observer.baseUrl}")
     private String observerBaseUrl;
 
-    @Value("${GITHUB_TOKEN}")
-    private String githubToken;
-    
     @Bean
-    public WebClient observerWebClient(WebClient.Builder webClientBuilder) {
+    public WebClient observerWebClient(WebClient.Builder webClientBuilder,
+                                       GithubHttpClient githubHttpClient,
+                                       ConditionalRequestCache conditionalRequestCache,
+                                       RateLimitScheduler rateLimitScheduler,
+                                       GithubTokenPool githubTokenPool,
+                                       GithubJsonDecoder githubJsonDecoder,
+                                       PipelineMetrics pipelineMetrics,
+                                       AdaptiveTimeouts adaptiveTimeouts) {
         return webClientBuilder
                 .baseUrl(observerBaseUrl)
-                .defaultHeader("Authorization", "Bearer " + githubToken)
+                .clientConnector(githubHttpClient.connector())
+                .codecs(codecs -> codecs.customCodecs().register(githubJsonDecoder))
+                .filter(conditionalRequestCache)
+                .filter(rateLimitScheduler)
+                .filter(githubTokenPool)
+                .filter(pipelineMetrics)
+                .filter(adaptiveTimeouts)
+                .build();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "observer.fetcher", havingValue = "blocking")
+    public RestClient observerRestClient(ObjectProvider<RestClient.Builder> restClientBuilder,
+                                         RateLimitScheduler rateLimitScheduler,
+                                         GithubTokenPool githubTokenPool,
+                                         @Value("${observer.upstream.timeout.max:PT10S}") Duration timeout) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .connectTimeout(timeout)
+                .build();
+        // the JDK client takes one timeout per factory, so blocking calls get the adaptive timeouts' upper bound
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(timeout);
+        // the auto-configured builder carries the http.client.requests observation; WebFlux-only builds have none
+        return restClientBuilder.getIfAvailable(RestClient::builder)
+                .baseUrl(observerBaseUrl)
+                .requestFactory(requestFactory)
+                .requestInterceptor(rateLimitScheduler)
+                .requestInterceptor(githubTokenPool)
                 .build();
     }
+
+    @Bean
+    public StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache(
+            @Value("${observer.result-cache.max-entries:10000}") int maxEntries,
+            @Value("${observer.result-cache.fresh-for:PT5M}") Duration freshFor,
+            @Value("${observer.result-cache.stale-for:PT1H}") Duration staleFor,
+            SnapshotStore snapshotStore) {
+        return new StaleWhileRevalidateCache<>(maxEntries, freshFor, staleFor, Clock.systemUTC(),
+                snapshotStore.view("repository-details:", new RepositoryDetailsCodec()));
+    }
 }
@@ -0,0 +1,55 @@
+package com.github.observer;
+
+import com.amazonaws.serverless.proxy.model.ApiGatewayAuthorizerContext;
+import com.amazonaws.serverless.proxy.model.CognitoAuthorizerClaims;
+import com.amazonaws.serverless.proxy.model.ErrorModel;
+import com.github.observer.exception.RateLimitExceededException;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.model.BatchResult;
+import com.github.observer.model.Branch;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.Commit;
+import com.github.observer.model.Owner;
+import com.github.observer.model.Repository;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.model.RepositoryQuery;
+import com.github.observer.service.ObserverService;
+import io.github.resilience4j.spring6.circuitbreaker.configure.CircuitBreakerAspect;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * Native-image hints for what Spring AOT cannot infer from bean definitions and controller signatures.
+ * <ul>
+ *     <li>The Lombok models are bound by Jackson outside any controller signature: GitHub payloads on the
+ *     blocking engine, and response bodies encoded by {@code EncodedResponseCache}.</li>
+ *     <li>resilience4j invokes its advice and looks up {@code fallbackMethod}s reflectively, and loads the
+ *     {@code ignore-exceptions} classes by name.</li>
+ *     <li>The Lambda runtime instantiates {@link LambdaHandler} by name. The container's own AOT processor
+ *     registers the proxy request and response types, but not the authorizer and error models.</li>
+ * </ul>
+ */
+public class ObserverRuntimeHints implements RuntimeHintsRegistrar {
+
+    private final BindingReflectionHintsRegistrar bindingHints = new BindingReflectionHintsRegistrar();
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        bindingHints.registerReflectionHints(hints.reflection(),
+                Repository.class, Owner.class, Branch.class, Commit.class,
+                RepositoryDetails.class, BranchDetails.class, RepositoryQuery.class, BatchResult.class);
+
+        hints.reflection()
+                .registerType(ObserverService.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(CircuitBreakerAspect.class, MemberCategory.INVOKE_PUBLIC_METHODS)
+                .registerType(RateLimitExceededException.class)
+                .registerType(UserNotFoundException.class);
+
+        hints.reflection().registerType(LambdaHandler.class,
+                MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS, MemberCategory.INVOKE_PUBLIC_METHODS);
+        bindingHints.registerReflectionHints(hints.reflection(),
+                ApiGatewayAuthorizerContext.class, CognitoAuthorizerClaims.class, ErrorModel.class);
+    }
+}
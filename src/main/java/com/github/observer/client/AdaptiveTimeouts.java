@@ -0,0 +1,249 @@
+package com.github.observer.client;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-endpoint timeouts for GitHub calls, derived from the latency each endpoint has shown over its last
+ * {@value #WINDOW} calls. A call gets {@code multiplier} times the endpoint's p99 to receive its response
+ * headers, and as long again between body chunks, bounded by {@code observer.upstream.timeout.min} and
+ * {@code .max}; until {@value #MIN_SAMPLES} calls have been seen, the maximum applies. A call that times
+ * out is recorded with the timeout as its latency, so an endpoint that slows down for everyone gets
+ * longer timeouts instead of failing every call.
+ * <p>
+ * The observed p95 also drives {@link #hedge}: an idempotent call still unanswered after it is sent a
+ * second time and whichever answers first wins. At most {@code observer.upstream.hedging.max-ratio} of an
+ * endpoint's calls are hedged, so a slow GitHub does not get twice the traffic.
+ */
+@Slf4j
+@Component
+public class AdaptiveTimeouts implements ExchangeFilterFunction {
+
+    public static final String REPOSITORIES = "repositories";
+    public static final String BRANCHES = "branches";
+    public static final String GRAPHQL = "graphql";
+    public static final String OTHER = "other";
+    public static final List<String> ENDPOINTS = List.of(REPOSITORIES, BRANCHES, GRAPHQL, OTHER);
+
+    private static final int WINDOW = 512;
+    private static final int MIN_SAMPLES = 32;
+    private static final int RECOMPUTE_EVERY = 16;
+
+    private final boolean enabled;
+    private final Duration minTimeout;
+    private final Duration maxTimeout;
+    private final double multiplier;
+    private final boolean hedging;
+    private final double maxHedgeRatio;
+    private final Map<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    private final AtomicLong timeouts = new AtomicLong();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong hedgeWins = new AtomicLong();
+
+    @Autowired
+    public AdaptiveTimeouts(@Value("${observer.upstream.timeout.min:PT1S}") Duration minTimeout,
+                            @Value("${observer.upstream.timeout.max:PT10S}") Duration maxTimeout,
+                            @Value("${observer.upstream.timeout.multiplier:3}") double multiplier,
+                            @Value("${observer.upstream.hedging.enabled:true}") boolean hedging,
+                            @Value("${observer.upstream.hedging.max-ratio:0.05}") double maxHedgeRatio) {
+        this(true, minTimeout, maxTimeout, multiplier, hedging, maxHedgeRatio);
+    }
+
+    private AdaptiveTimeouts(boolean enabled, Duration minTimeout, Duration maxTimeout, double multiplier,
+                             boolean hedging, double maxHedgeRatio) {
+        this.enabled = enabled;
+        this.minTimeout = minTimeout;
+        this.maxTimeout = maxTimeout;
+        this.multiplier = multiplier;
+        this.hedging = hedging;
+        this.maxHedgeRatio = maxHedgeRatio;
+    }
+
+    /**
+     * Passes calls through untouched and never hedges.
+     */
+    public static AdaptiveTimeouts disabled() {
+        return new AdaptiveTimeouts(false, Duration.ZERO, Duration.ZERO, 0, false, 0);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!enabled) {
+            return next.exchange(request);
+        }
+        return Mono.defer(() -> {
+            Endpoint endpoint = endpoint(endpointOf(request.url().getPath()));
+            Duration timeout = endpoint.timeout();
+            long start = System.nanoTime();
+            endpoint.countCall();
+            return next.exchange(request)
+                    .timeout(timeout, Mono.defer(() -> Mono.error(timedOut(endpoint, timeout, "response"))))
+                    .doOnNext(response -> endpoint.record(System.nanoTime() - start))
+                    .map(response -> response.mutate()
+                            .body(body -> body.timeout(timeout,
+                                    Flux.defer(() -> Flux.error(timedOut(endpoint, timeout, "response body")))))
+                            .build());
+        });
+    }
+
+    /**
+     * Subscribes to {@code hedge} when {@code call} has not answered within the endpoint's p95, while the
+     * endpoint's hedging budget allows, and takes whichever subscription signals first. An error of the
+     * hedge is dropped, so only {@code call} can fail the result. Both must send the same idempotent
+     * request, and {@code call} must be subscribed only once it is about to be sent, since the p95 it is
+     * measured against covers the exchange alone and not time spent waiting for a permit. The p95 is read
+     * at subscription.
+     */
+    public <T> Mono<T> hedge(String endpointName, Mono<T> call, Mono<T> hedge) {
+        return Mono.defer(() -> {
+            Duration delay = hedgeDelay(endpointName);
+            if (delay == null) {
+                return call;
+            }
+            Endpoint endpoint = endpoint(endpointName);
+            Mono<T> hedged = Mono.delay(delay)
+                    .then(Mono.defer(() -> {
+                        if (!endpoint.tryHedge()) {
+                            return Mono.<T>never();
+                        }
+                        hedges.incrementAndGet();
+                        log.debug("Hedging a GitHub {} call unanswered after {}", endpointName, delay);
+                        return hedge.doOnNext(value -> hedgeWins.incrementAndGet())
+                                .onErrorResume(e -> {
+                                    log.debug("Hedged GitHub {} call failed: {}", endpointName, e.toString());
+                                    return Mono.never();
+                                });
+                    }));
+            return Mono.firstWithSignal(call, hedged);
+        });
+    }
+
+    /**
+     * Returns the current timeout for calls to the endpoint.
+     */
+    public Duration timeout(String endpointName) {
+        return endpoint(endpointName).timeout();
+    }
+
+    /**
+     * Returns how long a call to the endpoint waits before it is hedged, or {@code null} when hedging is
+     * off or the endpoint has not been seen often enough yet.
+     */
+    public Duration hedgeDelay(String endpointName) {
+        if (!enabled || !hedging) {
+            return null;
+        }
+        long p95 = endpoint(endpointName).p95();
+        return p95 < 0 ? null : Duration.ofNanos(p95);
+    }
+
+    public long getTimeouts() {
+        return timeouts.get();
+    }
+
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    public long getHedgeWins() {
+        return hedgeWins.get();
+    }
+
+    /**
+     * Names the endpoint of a request path or URI template.
+     */
+    public static String endpointOf(String path) {
+        if (path.endsWith("/branches")) {
+            return BRANCHES;
+        }
+        if (path.endsWith("/repos")) {
+            return REPOSITORIES;
+        }
+        if (path.endsWith("/graphql")) {
+            return GRAPHQL;
+        }
+        return OTHER;
+    }
+
+    private Endpoint endpoint(String name) {
+        return endpoints.computeIfAbsent(name, Endpoint::new);
+    }
+
+    private TimeoutException timedOut(Endpoint endpoint, Duration timeout, String awaited) {
+        timeouts.incrementAndGet();
+        endpoint.record(timeout.toNanos());
+        return new TimeoutException("GitHub " + endpoint.name + " call got no " + awaited + " within " + timeout);
+    }
+
+    private class Endpoint {
+
+        private final String name;
+        private final long[] samples = new long[WINDOW];
+        private int next;
+        private int count;
+        private int sinceRecompute;
+        private long p95 = -1;
+        private long p99 = -1;
+        private long calls;
+        private long hedged;
+
+        Endpoint(String name) {
+            this.name = name;
+        }
+
+        synchronized void countCall() {
+            calls++;
+        }
+
+        synchronized void record(long nanos) {
+            samples[next] = nanos;
+            next = (next + 1) % WINDOW;
+            count = Math.min(count + 1, WINDOW);
+            if (count >= MIN_SAMPLES && (p99 < 0 || ++sinceRecompute >= RECOMPUTE_EVERY)) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+                p99 = sorted[(int) Math.ceil(count * 0.99) - 1];
+                sinceRecompute = 0;
+            }
+        }
+
+        synchronized Duration timeout() {
+            if (p99 < 0) {
+                return maxTimeout;
+            }
+            Duration timeout = Duration.ofNanos((long) (p99 * multiplier));
+            return timeout.compareTo(minTimeout) < 0 ? minTimeout
+                    : timeout.compareTo(maxTimeout) > 0 ? maxTimeout : timeout;
+        }
+
+        synchronized long p95() {
+            return p95;
+        }
+
+        synchronized boolean tryHedge() {
+            if (hedged + 1 > calls * maxHedgeRatio) {
+                return false;
+            }
+            hedged++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,255 @@
+package com.github.observer.client;
+
+import com.github.observer.snapshot.SnapshotCodec;
+import com.github.observer.snapshot.SnapshotStore;
+import com.github.observer.snapshot.SnapshotView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Conditional-request cache for GitHub GET calls. The body, headers and validators
+ * ({@code ETag}/{@code Last-Modified}) of every successful response are kept per URL, later calls
+ * for the same URL are sent with {@code If-None-Match}/{@code If-Modified-Since}, and a
+ * {@code 304 Not Modified} answer is turned back into a {@code 200} carrying the cached body.
+ * GitHub does not count 304 responses against the rate limit, and each one restarts the entry's
+ * time-to-live, since it confirms the cached body is current. A body is copied as its buffers pass
+ * through to the decoder and is stored once it has been read completely, so decoding is never held
+ * back until the whole body has arrived. Responses are also kept in the
+ * {@link SnapshotStore}, so validators survive a restart and the first calls after it can still be
+ * answered with a 304.
+ */
+@Slf4j
+@Component
+public class ConditionalRequestCache implements ExchangeFilterFunction {
+
+    private final Map<String, CachedResponse> entries;
+    private final Duration timeToLive;
+    private final Clock clock;
+    private final SnapshotView<CachedResponse> snapshot;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ConditionalRequestCache(@Value("${observer.http-cache.max-entries:1000}") int maxEntries,
+                                   @Value("${observer.http-cache.time-to-live:PT1H}") Duration timeToLive,
+                                   SnapshotStore snapshotStore) {
+        this(maxEntries, timeToLive, Clock.systemUTC(), snapshotStore);
+    }
+
+    public ConditionalRequestCache(int maxEntries, Duration timeToLive) {
+        this(maxEntries, timeToLive, Clock.systemUTC());
+    }
+
+    public ConditionalRequestCache(int maxEntries, Duration timeToLive, Clock clock) {
+        this(maxEntries, timeToLive, clock, SnapshotStore.disabled());
+    }
+
+    public ConditionalRequestCache(int maxEntries, Duration timeToLive, Clock clock, SnapshotStore snapshotStore) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.snapshot = snapshotStore.view("github-http:", new CachedResponseCodec());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        String key = request.url().toString();
+        CachedResponse cached = lookup(key);
+        ClientRequest conditionalRequest = cached == null ? request : ClientRequest.from(request)
+                .headers(headers -> {
+                    if (cached.etag() != null) {
+                        headers.setIfNoneMatch(cached.etag());
+                    }
+                    if (cached.lastModified() != null) {
+                        headers.set(HttpHeaders.IF_MODIFIED_SINCE, cached.lastModified());
+                    }
+                })
+                .build();
+
+        return next.exchange(conditionalRequest).flatMap(response -> {
+            if (cached != null && response.statusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED)) {
+                hits.incrementAndGet();
+                log.debug("Serving cached body for {}", key);
+                store(key, cached.storedAt(clock.millis()));
+                return Mono.just(response.mutate()
+                        .statusCode(HttpStatus.OK)
+                        .headers(headers -> {
+                            headers.clear();
+                            headers.addAll(cached.headers());
+                        })
+                        .body(Flux.defer(() -> Flux.just(wrap(cached.body()))))
+                        .build());
+            }
+            misses.incrementAndGet();
+            if (!response.statusCode().is2xxSuccessful() || !hasValidator(response.headers().asHttpHeaders())) {
+                return Mono.just(response);
+            }
+            HttpHeaders headers = new HttpHeaders();
+            headers.addAll(response.headers().asHttpHeaders());
+            ByteArrayOutputStream body = new ByteArrayOutputStream();
+            return Mono.just(response.mutate()
+                    .body(buffers -> buffers
+                            .doOnNext(buffer -> copy(buffer, body))
+                            .doOnComplete(() -> store(key, new CachedResponse(headers.getETag(),
+                                    headers.getFirst(HttpHeaders.LAST_MODIFIED), headers, body.toByteArray(),
+                                    clock.millis()))))
+                    .build());
+        });
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private CachedResponse lookup(String key) {
+        synchronized (this) {
+            CachedResponse cached = entries.get(key);
+            if (cached != null) {
+                if (clock.millis() - cached.storedAt() <= timeToLive.toMillis()) {
+                    return cached;
+                }
+                entries.remove(key);
+                evictions.incrementAndGet();
+                return null;
+            }
+        }
+        return restore(key);
+    }
+
+    private CachedResponse restore(String key) {
+        SnapshotView.Stored<CachedResponse> stored = snapshot.load(key);
+        if (stored == null || clock.millis() - stored.storedAt() > timeToLive.toMillis()) {
+            return null;
+        }
+        CachedResponse restored = stored.value().storedAt(stored.storedAt());
+        synchronized (this) {
+            CachedResponse current = entries.putIfAbsent(key, restored);
+            return current != null ? current : restored;
+        }
+    }
+
+    private void store(String key, CachedResponse response) {
+        synchronized (this) {
+            entries.put(key, response);
+        }
+        snapshot.save(key, response, response.storedAt());
+    }
+
+    private static boolean hasValidator(HttpHeaders headers) {
+        return headers.getETag() != null || headers.getFirst(HttpHeaders.LAST_MODIFIED) != null;
+    }
+
+    /**
+     * Copies the readable bytes of a buffer that is still on its way downstream, leaving its read
+     * position untouched.
+     */
+    private static void copy(DataBuffer buffer, ByteArrayOutputStream body) {
+        try (DataBuffer.ByteBufferIterator readable = buffer.readableByteBuffers()) {
+            while (readable.hasNext()) {
+                ByteBuffer chunk = readable.next();
+                byte[] bytes = new byte[chunk.remaining()];
+                chunk.get(bytes);
+                body.writeBytes(bytes);
+            }
+        }
+    }
+
+    private static DataBuffer wrap(byte[] body) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(body);
+    }
+
+    private record CachedResponse(String etag, String lastModified, HttpHeaders headers, byte[] body, long storedAt) {
+
+        CachedResponse storedAt(long storedAt) {
+            return new CachedResponse(etag, lastModified, headers, body, storedAt);
+        }
+    }
+
+    /**
+     * Keeps the headers and body; the validators are read back from the headers and the time stored
+     * comes from the snapshot entry.
+     */
+    private static class CachedResponseCodec implements SnapshotCodec<CachedResponse> {
+
+        @Override
+        public void write(CachedResponse response, DataOutput out) throws IOException {
+            out.writeInt(response.headers().size());
+            for (Map.Entry<String, List<String>> header : response.headers().entrySet()) {
+                out.writeUTF(header.getKey());
+                out.writeInt(header.getValue().size());
+                for (String value : header.getValue()) {
+                    out.writeUTF(value);
+                }
+            }
+            out.writeInt(response.body().length);
+            out.write(response.body());
+        }
+
+        @Override
+        public CachedResponse read(DataInput in) throws IOException {
+            HttpHeaders headers = new HttpHeaders();
+            int headerCount = in.readInt();
+            for (int i = 0; i < headerCount; i++) {
+                String name = in.readUTF();
+                int valueCount = in.readInt();
+                for (int j = 0; j < valueCount; j++) {
+                    headers.add(name, in.readUTF());
+                }
+            }
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(headers.getETag(), headers.getFirst(HttpHeaders.LAST_MODIFIED), headers, body, 0);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.github.observer.client;
+
+import io.netty.channel.ChannelOption;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.http.client.ReactorResourceFactory;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.resources.LoopResources;
+
+import java.net.URI;
+import java.time.Duration;
+
+/**
+ * The Reactor Netty client behind {@code observerWebClient}, with a connection pool of its own instead of
+ * the shared default one. Up to {@code max-connections} connections are kept, most recently used first, so
+ * a fan-out reuses warm TLS sessions rather than handshaking again. Callers beyond that wait in a bounded
+ * queue. Idle connections are closed before GitHub drops them, and connections are replaced after
+ * {@code max-life-time}. Over HTTPS the client offers HTTP/2 through ALPN, and a connection then carries many
+ * concurrent requests. It falls back to HTTP/1.1 when the server does not support it. Responses are
+ * requested gzip-compressed and decompressed on arrival. Host names are resolved by Netty's resolver,
+ * which caches answers for their DNS TTL up to {@code dns-cache-max-ttl}. The pool publishes its gauges
+ * as {@code reactor.netty.connection.provider.*} with {@code name=github}.
+ * <p>
+ * Pool and event loops are stopped and recreated with the application context's lifecycle. After a
+ * checkpoint is restored, no connection or thread from before the checkpoint is reused. The client starts
+ * before the web server and stops after it.
+ */
+@Slf4j
+@Component
+public class GithubHttpClient implements SmartLifecycle {
+
+    private static final String POOL_NAME = "github";
+
+    private final ReactorResourceFactory resources;
+    private final ReactorClientHttpConnector connector;
+    private final boolean secure;
+    private final Duration connectTimeout;
+    private final Duration dnsCacheMaxTtl;
+
+    public GithubHttpClient(@Value("${observer.baseUrl}") String baseUrl,
+                            @Value("${observer.http.max-connections:64}") int maxConnections,
+                            @Value("${observer.http.pending-acquire-max:512}") int pendingAcquireMax,
+                            @Value("${observer.http.pending-acquire-timeout:PT5S}") Duration pendingAcquireTimeout,
+                            @Value("${observer.http.max-idle-time:PT30S}") Duration maxIdleTime,
+                            @Value("${observer.http.max-life-time:PT5M}") Duration maxLifeTime,
+                            @Value("${observer.http.connect-timeout:PT5S}") Duration connectTimeout,
+                            @Value("${observer.http.dns-cache-max-ttl:PT5M}") Duration dnsCacheMaxTtl) {
+        this.secure = "https".equalsIgnoreCase(URI.create(baseUrl).getScheme());
+        this.connectTimeout = connectTimeout;
+        this.dnsCacheMaxTtl = dnsCacheMaxTtl;
+        this.resources = new ReactorResourceFactory();
+        resources.setUseGlobalResources(false);
+        resources.setShutdownQuietPeriod(Duration.ZERO);
+        resources.setLoopResourcesSupplier(() -> LoopResources.create("github-http"));
+        resources.setConnectionProviderSupplier(() -> ConnectionProvider.builder(POOL_NAME)
+                .maxConnections(maxConnections)
+                .pendingAcquireMaxCount(pendingAcquireMax)
+                .pendingAcquireTimeout(pendingAcquireTimeout)
+                .maxIdleTime(maxIdleTime)
+                .maxLifeTime(maxLifeTime)
+                .evictInBackground(maxIdleTime)
+                .lifo()
+                .metrics(true)
+                .build());
+        resources.afterPropertiesSet();
+        this.connector = new ReactorClientHttpConnector(resources, this::configure);
+    }
+
+    public ClientHttpConnector connector() {
+        return connector;
+    }
+
+    /**
+     * Initializes the client's event loops, native transport and DNS resolver ahead of the first call.
+     */
+    public void warmup() {
+        configure(HttpClient.create(resources.getConnectionProvider()))
+                .runOn(resources.getLoopResources())
+                .warmup()
+                .block();
+    }
+
+    private HttpClient configure(HttpClient client) {
+        HttpClient configured = client
+                .compress(true)
+                .keepAlive(true)
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) connectTimeout.toMillis())
+                .resolver(spec -> spec
+                        .cacheMaxTimeToLive(dnsCacheMaxTtl)
+                        .cacheNegativeTimeToLive(Duration.ofSeconds(5)));
+        // HTTP/2 is negotiated through ALPN during the TLS handshake, so it needs TLS
+        return secure
+                ? configured.protocol(HttpProtocol.H2, HttpProtocol.HTTP11).secure()
+                : configured.protocol(HttpProtocol.HTTP11);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (!resources.isRunning()) {
+            resources.start();
+            connector.start();
+            log.info("Started the GitHub connection pool");
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (resources.isRunning()) {
+            connector.stop();
+            resources.stop();
+            log.info("Closed the GitHub connection pool");
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return resources.isRunning();
+    }
+
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+}
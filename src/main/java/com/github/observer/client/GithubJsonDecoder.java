@@ -0,0 +1,257 @@
+package com.github.observer.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import com.github.observer.model.Branch;
+import com.github.observer.model.Commit;
+import com.github.observer.model.Owner;
+import com.github.observer.model.Repository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Streaming decoder for the GitHub models the service reads, {@link Repository} and {@link Branch}.
+ * A non-blocking Jackson parser is fed every buffer as it arrives and the token stream is walked
+ * directly: the few fields the models need are picked up by their path, every other field and
+ * subtree is passed over without building a value, a tree or a token buffer, and an element is
+ * emitted as soon as its closing brace has been read. The body may be a JSON array of elements or a
+ * single element. The parsing time of every body, excluding the time spent waiting for its buffers,
+ * is recorded per model as {@code observer.json.decode}.
+ */
+@Component
+public class GithubJsonDecoder implements Decoder<Object> {
+
+    private static final Map<Class<?>, Model> MODELS = Map.of(
+            Repository.class, Model.of(List.of("name", "owner.login", "fork", "pushed_at", "updated_at"), values ->
+                    new Repository((String) values[0], new Owner((String) values[1]), Boolean.TRUE.equals(values[2]),
+                            (String) values[3], (String) values[4])),
+            Branch.class, Model.of(List.of("name", "commit.sha"), values ->
+                    new Branch((String) values[0], new Commit((String) values[1]))));
+
+    private static final List<MimeType> MIME_TYPES = List.of(MediaType.APPLICATION_JSON,
+            new MediaType("application", "*+json"));
+
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final Map<Class<?>, Timer> decodeTimers;
+
+    public GithubJsonDecoder() {
+        this(Metrics.globalRegistry);
+    }
+
+    @Autowired
+    public GithubJsonDecoder(MeterRegistry meterRegistry) {
+        this.decodeTimers = MODELS.keySet().stream().collect(Collectors.toMap(type -> type, type ->
+                Timer.builder("observer.json.decode")
+                        .description("Time spent parsing one GitHub response body")
+                        .tag("type", type.getSimpleName())
+                        .register(meterRegistry)));
+    }
+
+    @Override
+    public boolean canDecode(ResolvableType elementType, MimeType mimeType) {
+        return MODELS.containsKey(elementType.toClass())
+                && (mimeType == null || MIME_TYPES.stream().anyMatch(supported -> supported.isCompatibleWith(mimeType)));
+    }
+
+    @Override
+    public Flux<Object> decode(Publisher<DataBuffer> inputStream, ResolvableType elementType, MimeType mimeType,
+                               Map<String, Object> hints) {
+        Model model = MODELS.get(elementType.toClass());
+        Timer decodeTimer = decodeTimers.get(elementType.toClass());
+        return Flux.defer(() -> {
+            StreamingReader reader = new StreamingReader(model);
+            return Flux.from(inputStream)
+                    .concatMapIterable(reader::feed)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(reader.endOfInput())))
+                    .doFinally(signal -> {
+                        reader.close();
+                        decodeTimer.record(reader.parseNanos, TimeUnit.NANOSECONDS);
+                    });
+        });
+    }
+
+    @Override
+    public Mono<Object> decodeToMono(Publisher<DataBuffer> inputStream, ResolvableType elementType,
+                                     MimeType mimeType, Map<String, Object> hints) {
+        return decode(inputStream, elementType, mimeType, hints).singleOrEmpty();
+    }
+
+    @Override
+    public List<MimeType> getDecodableMimeTypes() {
+        return MIME_TYPES;
+    }
+
+    /**
+     * Fields to read, as dot-separated paths relative to the element, and how to build the element
+     * from their values in the same order.
+     */
+    private record Model(String[][] paths, Function<Object[], Object> factory) {
+
+        static Model of(List<String> fields, Function<Object[], Object> factory) {
+            return new Model(fields.stream().map(field -> field.split("\\.")).toArray(String[][]::new), factory);
+        }
+    }
+
+    private class StreamingReader {
+
+        private final Model model;
+        private final String[][] paths;
+        private final JsonParser parser;
+        private final ByteBufferFeeder feeder;
+
+        private String[] names = new String[16];
+        private int depth;
+        private int elementDepth = -1;
+        private Object[] values;
+        private long parseNanos;
+
+        StreamingReader(Model model) {
+            this.model = model;
+            this.paths = model.paths();
+            try {
+                this.parser = jsonFactory.createNonBlockingByteBufferParser();
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        }
+
+        List<Object> feed(DataBuffer buffer) {
+            long start = System.nanoTime();
+            List<Object> elements = new ArrayList<>(1);
+            try (DataBuffer.ByteBufferIterator byteBuffers = buffer.readableByteBuffers()) {
+                while (byteBuffers.hasNext()) {
+                    ByteBuffer byteBuffer = byteBuffers.next();
+                    feeder.feedInput(byteBuffer);
+                    drain(elements);
+                }
+            } catch (IOException e) {
+                throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+            } finally {
+                DataBufferUtils.release(buffer);
+                parseNanos += System.nanoTime() - start;
+            }
+            return elements;
+        }
+
+        List<Object> endOfInput() {
+            long start = System.nanoTime();
+            List<Object> elements = new ArrayList<>(1);
+            feeder.endOfInput();
+            try {
+                drain(elements);
+            } catch (IOException e) {
+                throw new DecodingException("JSON decoding error: " + e.getMessage(), e);
+            } finally {
+                parseNanos += System.nanoTime() - start;
+            }
+            if (depth != 0) {
+                throw new DecodingException("JSON decoding error: unexpected end of input");
+            }
+            return elements;
+        }
+
+        void close() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                // nothing left to release
+            }
+        }
+
+        private void drain(List<Object> elements) throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                switch (token) {
+                    case START_OBJECT -> {
+                        push();
+                        if (elementDepth < 0 || depth == elementDepth) {
+                            elementDepth = depth;
+                            values = new Object[paths.length];
+                        }
+                    }
+                    case START_ARRAY -> {
+                        push();
+                        if (elementDepth < 0) {
+                            elementDepth = depth + 1;
+                        }
+                    }
+                    case END_OBJECT -> {
+                        if (depth == elementDepth) {
+                            elements.add(model.factory().apply(values));
+                            values = null;
+                        }
+                        depth--;
+                    }
+                    case END_ARRAY -> depth--;
+                    case FIELD_NAME -> names[depth] = parser.currentName();
+                    case VALUE_STRING -> value(JsonToken.VALUE_STRING);
+                    case VALUE_TRUE, VALUE_FALSE -> value(token);
+                    default -> {
+                        // numbers and nulls are never read
+                    }
+                }
+            }
+        }
+
+        private void push() {
+            depth++;
+            if (depth == names.length) {
+                names = Arrays.copyOf(names, depth * 2);
+            }
+            names[depth] = null;
+        }
+
+        /**
+         * Stores the current scalar when its path inside the element is one of the model's fields;
+         * no {@code String} is created for any other value.
+         */
+        private void value(JsonToken token) throws IOException {
+            if (values == null) {
+                return;
+            }
+            for (int i = 0; i < paths.length; i++) {
+                String[] path = paths[i];
+                if (depth != elementDepth + path.length - 1 || !matches(path)) {
+                    continue;
+                }
+                values[i] = token == JsonToken.VALUE_STRING ? parser.getText() : token == JsonToken.VALUE_TRUE;
+                return;
+            }
+        }
+
+        private boolean matches(String[] path) {
+            for (int i = 0; i < path.length; i++) {
+                if (!path[i].equals(names[elementDepth + i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
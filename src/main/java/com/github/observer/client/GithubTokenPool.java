@@ -0,0 +1,262 @@
+package com.github.observer.client;
+
+import com.github.observer.exception.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Spreads GitHub calls over a pool of tokens ({@code observer.github.tokens}). Every call is sent with
+ * the token that has the most remaining quota for the call's rate-limit resource, as last reported by
+ * the {@code X-RateLimit-*} headers. A token whose quota is spent is skipped until its reset time, and a
+ * call rejected because its token ran out is sent again with the next token that still has headroom.
+ * A token answered with {@code Retry-After} is skipped for that long and its rejected call is sent
+ * again the same way; only when no token is left does the rejection reach {@link RateLimitScheduler}.
+ * The pool serves both the reactive {@code WebClient} and the blocking {@code RestClient}.
+ */
+@Slf4j
+@Component
+public class GithubTokenPool implements ExchangeFilterFunction, ClientHttpRequestInterceptor {
+
+    private final List<Token> tokens;
+    private final Clock clock;
+
+    @Autowired
+    public GithubTokenPool(@Value("${observer.github.tokens}") List<String> tokens) {
+        this(tokens, Clock.systemUTC());
+    }
+
+    public GithubTokenPool(List<String> tokens, Clock clock) {
+        this.tokens = tokens.stream()
+                .map(String::trim)
+                .filter(token -> !token.isEmpty())
+                .distinct()
+                .map(Token::new)
+                .toList();
+        this.clock = clock;
+        if (this.tokens.isEmpty()) {
+            throw new IllegalArgumentException("At least one GitHub token must be configured");
+        }
+        log.info("Using a pool of {} GitHub token(s)", this.tokens.size());
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.defer(() -> exchange(request, next, resourceOf(request.url()), new HashSet<>()));
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, String resource,
+                                          Set<Token> exhausted) {
+        Token token = select(resource, exhausted);
+        if (token == null) {
+            return Mono.error(exhausted(resource));
+        }
+        ClientRequest authorized = ClientRequest.from(request)
+                .headers(headers -> headers.setBearerAuth(token.value))
+                .build();
+        return next.exchange(authorized).flatMap(response -> {
+            HttpHeaders headers = response.headers().asHttpHeaders();
+            token.update(resource, response.statusCode(), headers);
+            if (!switchToken(token, resource, response.statusCode(), headers, exhausted)) {
+                return Mono.just(response);
+            }
+            return response.releaseBody().then(exchange(request, next, resource, exhausted));
+        });
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        String resource = resourceOf(request.getURI());
+        Set<Token> exhausted = new HashSet<>();
+        while (true) {
+            Token token = select(resource, exhausted);
+            if (token == null) {
+                throw exhausted(resource);
+            }
+            request.getHeaders().setBearerAuth(token.value);
+            ClientHttpResponse response = execution.execute(request, body);
+            token.update(resource, response.getStatusCode(), response.getHeaders());
+            if (!switchToken(token, resource, response.getStatusCode(), response.getHeaders(), exhausted)) {
+                return response;
+            }
+            response.close();
+        }
+    }
+
+    /**
+     * Marks the token as exhausted when the response says its quota ran out or it has to back off,
+     * and another token is still left to try.
+     */
+    private boolean switchToken(Token token, String resource, HttpStatusCode status, HttpHeaders headers,
+                                Set<Token> exhausted) {
+        boolean rejected = isQuotaExhausted(status, headers)
+                || isLimited(status) && headers.containsKey(HttpHeaders.RETRY_AFTER);
+        if (!rejected || exhausted.size() + 1 >= tokens.size()) {
+            return false;
+        }
+        exhausted.add(token);
+        log.warn("GitHub token {} was rejected for {}, switching token", token, resource);
+        return true;
+    }
+
+    private RateLimitExceededException exhausted(String resource) {
+        Duration retryAfter = Duration.between(clock.instant(), earliestAvailable(resource));
+        if (retryAfter.isNegative()) {
+            retryAfter = Duration.ZERO;
+        }
+        return new RateLimitExceededException("All GitHub tokens are exhausted, retry after "
+                + retryAfter.toSeconds() + "s", retryAfter);
+    }
+
+    /**
+     * Remaining quota per token for the given resource, {@code -1} when not known yet.
+     */
+    public Map<String, Integer> getRemaining(String resource) {
+        Map<String, Integer> remaining = new LinkedHashMap<>();
+        tokens.forEach(token -> remaining.put(token.toString(), token.quota(resource).remaining));
+        return remaining;
+    }
+
+    public int size() {
+        return tokens.size();
+    }
+
+    private synchronized Token select(String resource, Set<Token> exhausted) {
+        Instant now = clock.instant();
+        Token best = null;
+        long bestHeadroom = 0;
+        for (Token token : tokens) {
+            if (exhausted.contains(token)) {
+                continue;
+            }
+            long headroom = token.quota(resource).headroom(now);
+            if (headroom > bestHeadroom) {
+                best = token;
+                bestHeadroom = headroom;
+            }
+        }
+        if (best != null) {
+            best.quota(resource).consume();
+        }
+        return best;
+    }
+
+    private synchronized Instant earliestAvailable(String resource) {
+        return tokens.stream()
+                .map(token -> token.quota(resource).availableAt())
+                .min(Instant::compareTo)
+                .orElse(clock.instant());
+    }
+
+    private static boolean isQuotaExhausted(HttpStatusCode status, HttpHeaders headers) {
+        return isLimited(status) && "0".equals(headers.getFirst("X-RateLimit-Remaining"));
+    }
+
+    private static boolean isLimited(HttpStatusCode status) {
+        return status.isSameCodeAs(HttpStatus.FORBIDDEN) || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+    }
+
+    private static String resourceOf(URI url) {
+        return url.getPath().endsWith("/graphql") ? "graphql" : "core";
+    }
+
+    private class Token {
+
+        private final String value;
+        private final Map<String, Quota> quotas = new LinkedHashMap<>();
+
+        Token(String value) {
+            this.value = value;
+        }
+
+        Quota quota(String resource) {
+            synchronized (GithubTokenPool.this) {
+                return quotas.computeIfAbsent(resource, r -> new Quota());
+            }
+        }
+
+        void update(String resource, HttpStatusCode status, HttpHeaders headers) {
+            String remaining = headers.getFirst("X-RateLimit-Remaining");
+            String reset = headers.getFirst("X-RateLimit-Reset");
+            String retryAfter = isLimited(status) ? headers.getFirst(HttpHeaders.RETRY_AFTER) : null;
+            Quota quota = quota(resource);
+            synchronized (GithubTokenPool.this) {
+                try {
+                    if (remaining != null) {
+                        quota.remaining = Integer.parseInt(remaining);
+                        quota.sent = 0;
+                    }
+                    if (reset != null) {
+                        quota.resetAt = Instant.ofEpochSecond(Long.parseLong(reset));
+                    }
+                    if (retryAfter != null) {
+                        quota.pausedUntil = clock.instant().plusSeconds(Long.parseLong(retryAfter));
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Unexpected GitHub rate limit headers: remaining={}, reset={}, retry-after={}",
+                            remaining, reset, retryAfter);
+                }
+            }
+        }
+
+        @Override
+        public String toString() {
+            return "..." + value.substring(Math.max(0, value.length() - 4));
+        }
+    }
+
+    private static class Quota {
+
+        private int remaining = -1;
+        private Instant resetAt = Instant.EPOCH;
+        private Instant pausedUntil = Instant.EPOCH;
+        private int sent;
+
+        /**
+         * Unknown quota ranks above any known quota so every token gets probed, and a quota whose
+         * reset time has passed is assumed to be refilled. Calls sent since the last report count
+         * against the headroom so concurrent calls spread over the pool. A paused token has none.
+         */
+        long headroom(Instant now) {
+            if (pausedUntil.isAfter(now)) {
+                return 0;
+            }
+            long reported = remaining < 0 || !resetAt.isAfter(now) ? Integer.MAX_VALUE : remaining;
+            return reported - sent;
+        }
+
+        Instant availableAt() {
+            Instant refilled = remaining >= 0 && remaining <= sent ? resetAt : Instant.EPOCH;
+            return pausedUntil.isAfter(refilled) ? pausedUntil : refilled;
+        }
+
+        void consume() {
+            sent++;
+        }
+    }
+}
@@ -0,0 +1,339 @@
+package com.github.observer.client;
+
+import com.github.observer.exception.RateLimitExceededException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Schedules GitHub calls against the rate-limit budget reported in the {@code X-RateLimit-*} headers.
+ * The remaining budget is tracked per rate-limit resource ({@code core}, {@code graphql}) and per pooled
+ * token, and summed across the tokens; background work is shed once the sum drops to its reserve, while
+ * interactive requests keep going until their own, smaller reserve and are then delayed until a window
+ * resets if that is soon enough. A {@code 403}/{@code 429} carrying {@code Retry-After} (or an exhausted
+ * budget) pauses the token that got it for that long, and an interactive call that hit it is retried once,
+ * right away with another token or after the pause when every token is paused. The same budget also
+ * gates the blocking {@code RestClient}, where every call counts as interactive and delays are spent
+ * sleeping on the calling virtual thread.
+ */
+@Slf4j
+@Component
+public class RateLimitScheduler implements ExchangeFilterFunction, ClientHttpRequestInterceptor {
+
+    public enum Priority { INTERACTIVE, BACKGROUND }
+
+    private static final String PRIORITY_KEY = RateLimitScheduler.class.getName() + ".priority";
+    private static final String CORE = "core";
+    private static final String GRAPHQL = "graphql";
+
+    private final int interactiveReserve;
+    private final int backgroundReserve;
+    private final Duration maxDelay;
+    private final Clock clock;
+    private final Map<String, Budget> budgets = new ConcurrentHashMap<>();
+
+    private final AtomicLong delayed = new AtomicLong();
+    private final AtomicLong shed = new AtomicLong();
+
+    @Autowired
+    public RateLimitScheduler(@Value("${observer.rate-limit.interactive-reserve:50}") int interactiveReserve,
+                              @Value("${observer.rate-limit.background-reserve:500}") int backgroundReserve,
+                              @Value("${observer.rate-limit.max-delay:PT10S}") Duration maxDelay) {
+        this(interactiveReserve, backgroundReserve, maxDelay, Clock.systemUTC());
+    }
+
+    public RateLimitScheduler(int interactiveReserve, int backgroundReserve, Duration maxDelay, Clock clock) {
+        this.interactiveReserve = interactiveReserve;
+        this.backgroundReserve = backgroundReserve;
+        this.maxDelay = maxDelay;
+        this.clock = clock;
+    }
+
+    /**
+     * Marks the upstream calls of the decorated publisher as background work.
+     */
+    public static Function<Context, Context> background() {
+        return context -> context.put(PRIORITY_KEY, Priority.BACKGROUND);
+    }
+
+    /**
+     * Returns the priority that upstream calls made under the given context are scheduled with.
+     */
+    public static Priority priorityOf(ContextView context) {
+        return context.getOrDefault(PRIORITY_KEY, Priority.INTERACTIVE);
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            Priority priority = priorityOf(context);
+            Budget budget = budgets.computeIfAbsent(resourceOf(request.url()), Budget::new);
+            return exchange(request, next, budget, priority, true);
+        });
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        Budget budget = budgets.computeIfAbsent(resourceOf(request.getURI()), Budget::new);
+        boolean retryOnLimit = true;
+        while (true) {
+            Duration wait = admit(budget, Priority.INTERACTIVE);
+            if (!wait.isZero()) {
+                sleep(wait);
+            }
+            ClientHttpResponse response = execution.execute(request, body);
+            // the token pool further down the chain set the token on this same request
+            Duration retryAfter = budget.update(tokenOf(request.getHeaders()), response.getStatusCode(),
+                    response.getHeaders());
+            if (retryAfter == null) {
+                return response;
+            }
+            response.close();
+            if (!retryOnLimit) {
+                shed.incrementAndGet();
+                throw limitExceeded(retryAfter);
+            }
+            log.warn("GitHub {} rate limit hit, retrying {}", budget.resource, request.getURI());
+            retryOnLimit = false;
+        }
+    }
+
+    private Mono<ClientResponse> exchange(ClientRequest request, ExchangeFunction next, Budget budget,
+                                          Priority priority, boolean retryOnLimit) {
+        return Mono.defer(() -> {
+                    Duration wait = admit(budget, priority);
+                    return wait.isZero() ? Mono.<Long>empty() : Mono.delay(wait);
+                })
+                .then(Mono.defer(() -> next.exchange(request)))
+                .flatMap(response -> {
+                    Duration retryAfter = budget.update(tokenOf(response.request().getHeaders()),
+                            response.statusCode(), response.headers().asHttpHeaders());
+                    if (retryAfter == null) {
+                        return Mono.just(response);
+                    }
+                    if (!retryOnLimit || priority == Priority.BACKGROUND) {
+                        shed.incrementAndGet();
+                        return response.releaseBody().then(Mono.error(limitExceeded(retryAfter)));
+                    }
+                    log.warn("GitHub {} rate limit hit, retrying {}", budget.resource, request.url());
+                    return response.releaseBody()
+                            .then(exchange(request, next, budget, priority, false));
+                });
+    }
+
+    /**
+     * Takes one call from the budget and returns how long the call has to wait first, or throws
+     * when it would have to wait too long or is background work.
+     */
+    private Duration admit(Budget budget, Priority priority) {
+        Duration wait = budget.acquire(priority == Priority.BACKGROUND ? backgroundReserve : interactiveReserve);
+        if (wait.isZero()) {
+            return wait;
+        }
+        if (priority == Priority.BACKGROUND || wait.compareTo(maxDelay) > 0) {
+            shed.incrementAndGet();
+            throw new RateLimitExceededException(
+                    "GitHub rate limit exhausted, retry after " + wait.toSeconds() + "s", wait);
+        }
+        delayed.incrementAndGet();
+        log.debug("Delaying GitHub {} call by {} to stay within the rate limit", budget.resource, wait);
+        return wait;
+    }
+
+    private static RateLimitExceededException limitExceeded(Duration retryAfter) {
+        return new RateLimitExceededException(
+                "GitHub rate limit exceeded, retry after " + retryAfter.toSeconds() + "s", retryAfter);
+    }
+
+    private static void sleep(Duration wait) throws InterruptedIOException {
+        try {
+            Thread.sleep(wait);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for the GitHub rate limit");
+        }
+    }
+
+    /**
+     * Returns the resource's remaining budget summed over the tokens that have reported one, {@code -1}
+     * before any has, or {@code null} before the resource was called at all.
+     */
+    public Integer getRemaining(String resource) {
+        Budget budget = budgets.get(resource);
+        return budget == null ? null : budget.remaining();
+    }
+
+    /**
+     * Returns when the last of the tokens' current rate-limit windows for the resource resets, or
+     * {@code null} before GitHub has reported one.
+     */
+    public Instant getResetAt(String resource) {
+        Budget budget = budgets.get(resource);
+        return budget == null ? null : budget.resetAt();
+    }
+
+    public long getDelayed() {
+        return delayed.get();
+    }
+
+    public long getShed() {
+        return shed.get();
+    }
+
+    /**
+     * Identifies the token a call went out with; calls without one share a single budget.
+     */
+    private static String tokenOf(HttpHeaders requestHeaders) {
+        String authorization = requestHeaders.getFirst(HttpHeaders.AUTHORIZATION);
+        return authorization == null ? "" : authorization;
+    }
+
+    private static String resourceOf(URI url) {
+        return url.getPath().endsWith("/graphql") ? GRAPHQL : CORE;
+    }
+
+    /**
+     * The budget of one rate-limit resource, summed over the tokens that have answered for it. Each token's
+     * remaining calls, reset time and {@code Retry-After} pause are kept apart, since GitHub counts them
+     * per token and a pooled token that is paused or spent leaves the others usable.
+     */
+    private class Budget {
+
+        private final String resource;
+        private final Map<String, TokenBudget> tokens = new HashMap<>();
+
+        Budget(String resource) {
+            this.resource = resource;
+        }
+
+        synchronized int remaining() {
+            int remaining = -1;
+            for (TokenBudget token : tokens.values()) {
+                if (token.remaining >= 0) {
+                    remaining = Math.max(remaining, 0) + token.remaining;
+                }
+            }
+            return remaining;
+        }
+
+        synchronized Instant resetAt() {
+            return tokens.values().stream()
+                    .map(token -> token.resetAt)
+                    .filter(resetAt -> !resetAt.equals(Instant.EPOCH))
+                    .max(Instant::compareTo)
+                    .orElse(null);
+        }
+
+        /**
+         * Takes one call from the token with the most remaining budget, which is the one the token pool
+         * sends it with, and returns how long the call has to wait: until the first pause ends when every
+         * token is paused, or until the first window resets when the summed budget is down to the reserve.
+         */
+        synchronized Duration acquire(int reserve) {
+            Instant now = clock.instant();
+            Instant pausedUntil = null;
+            Instant resetAt = null;
+            TokenBudget fullest = null;
+            int remaining = 0;
+            for (TokenBudget token : tokens.values()) {
+                if (token.pausedUntil.isAfter(now)) {
+                    pausedUntil = pausedUntil == null || token.pausedUntil.isBefore(pausedUntil)
+                            ? token.pausedUntil : pausedUntil;
+                    continue;
+                }
+                if (token.remaining < 0 || !token.resetAt.isAfter(now)) {
+                    return Duration.ZERO;
+                }
+                remaining += token.remaining;
+                resetAt = resetAt == null || token.resetAt.isBefore(resetAt) ? token.resetAt : resetAt;
+                fullest = fullest == null || token.remaining > fullest.remaining ? token : fullest;
+            }
+            if (fullest == null) {
+                return pausedUntil == null ? Duration.ZERO : Duration.between(now, pausedUntil);
+            }
+            if (remaining <= reserve) {
+                return Duration.between(now, resetAt);
+            }
+            fullest.remaining--;
+            return Duration.ZERO;
+        }
+
+        /**
+         * Records the budget reported by a response to a call sent with {@code token} and returns how long
+         * that token has to back off when the response says its limit has been hit, or {@code null} when
+         * it has not.
+         */
+        synchronized Duration update(String token, HttpStatusCode status, HttpHeaders headers) {
+            TokenBudget budget = tokens.computeIfAbsent(token, t -> new TokenBudget());
+            Instant now = clock.instant();
+            String remainingHeader = headers.getFirst("X-RateLimit-Remaining");
+            String resetHeader = headers.getFirst("X-RateLimit-Reset");
+            try {
+                if (remainingHeader != null) {
+                    budget.remaining = Integer.parseInt(remainingHeader);
+                }
+                if (resetHeader != null) {
+                    budget.resetAt = Instant.ofEpochSecond(Long.parseLong(resetHeader));
+                }
+            } catch (NumberFormatException e) {
+                log.warn("Unexpected GitHub rate limit headers: remaining={}, reset={}", remainingHeader, resetHeader);
+            }
+
+            boolean limited = status.isSameCodeAs(HttpStatus.FORBIDDEN)
+                    || status.isSameCodeAs(HttpStatus.TOO_MANY_REQUESTS);
+            if (!limited) {
+                return null;
+            }
+            Duration retryAfter = null;
+            String retryAfterHeader = headers.getFirst(HttpHeaders.RETRY_AFTER);
+            if (retryAfterHeader != null) {
+                try {
+                    retryAfter = Duration.ofSeconds(Long.parseLong(retryAfterHeader));
+                } catch (NumberFormatException e) {
+                    log.warn("Unexpected Retry-After header: {}", retryAfterHeader);
+                }
+            } else if (budget.remaining == 0 && budget.resetAt.isAfter(now)) {
+                retryAfter = Duration.between(now, budget.resetAt);
+            }
+            if (retryAfter != null && now.plus(retryAfter).isAfter(budget.pausedUntil)) {
+                budget.pausedUntil = now.plus(retryAfter);
+            }
+            return retryAfter;
+        }
+    }
+
+    private static class TokenBudget {
+
+        private int remaining = -1;
+        private Instant resetAt = Instant.EPOCH;
+        private Instant pausedUntil = Instant.EPOCH;
+    }
+}
@@ -0,0 +1,170 @@
+package com.github.observer.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.github.observer.model.RepositoryDetails;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Size-bounded cache of JSON response bodies, so a result served from the result cache is encoded once
+ * rather than on every request. An entry remembers the list it was encoded from and is reused only while
+ * the caller passes that same instance, which is what the result cache hands out until it refreshes the
+ * entry; any other list is encoded again and replaces it. Each body carries a strong ETag computed from
+ * its bytes and, when large enough, a gzip variant compressed on first use.
+ */
+@Component
+public class EncodedResponseCache {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private final ObjectWriter writer;
+    private final int gzipMinSize;
+    private final Map<String, EncodedResponse> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public EncodedResponseCache(ObjectMapper objectMapper,
+                                @Value("${observer.response-cache.max-entries:1000}") int maxEntries,
+                                @Value("${observer.response-cache.gzip-min-size:2048}") int gzipMinSize) {
+        this.writer = objectMapper.writerFor(new TypeReference<List<RepositoryDetails>>() {
+        });
+        this.gzipMinSize = gzipMinSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, EncodedResponse> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public EncodedResponse get(String key, List<RepositoryDetails> repositories) {
+        synchronized (this) {
+            EncodedResponse cached = entries.get(key);
+            if (cached != null && cached.source == repositories) {
+                hits.incrementAndGet();
+                return cached;
+            }
+        }
+        misses.incrementAndGet();
+        EncodedResponse encoded = encode(repositories);
+        synchronized (this) {
+            entries.put(key, encoded);
+        }
+        return encoded;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private EncodedResponse encode(List<RepositoryDetails> repositories) {
+        try {
+            byte[] json = writer.writeValueAsBytes(repositories);
+            return new EncodedResponse(repositories, json, etag(json), json.length >= gzipMinSize);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not encode repositories", e);
+        }
+    }
+
+    private static String etag(byte[] json) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(json);
+            return "\"" + HEX.formatHex(digest, 0, 16) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * One encoded body. The gzip variant has its own ETag, as a strong validator must differ between
+     * representations.
+     */
+    public static final class EncodedResponse {
+
+        private final List<RepositoryDetails> source;
+        private final byte[] json;
+        private final String etag;
+        private final boolean compressible;
+        private volatile byte[] gzip;
+
+        private EncodedResponse(List<RepositoryDetails> source, byte[] json, String etag, boolean compressible) {
+            this.source = source;
+            this.json = json;
+            this.etag = etag;
+            this.compressible = compressible;
+        }
+
+        public byte[] json() {
+            return json;
+        }
+
+        public String etag() {
+            return etag;
+        }
+
+        public boolean isCompressible() {
+            return compressible;
+        }
+
+        /**
+         * Compressed on first call; concurrent first calls may each compress, with the same result.
+         */
+        public byte[] gzip() {
+            byte[] compressed = gzip;
+            if (compressed == null) {
+                compressed = compress(json);
+                gzip = compressed;
+            }
+            return compressed;
+        }
+
+        public String gzipEtag() {
+            return etag.substring(0, etag.length() - 1) + "-gzip\"";
+        }
+
+        private static byte[] compress(byte[] json) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4);
+            try (GZIPOutputStream gzipStream = new GZIPOutputStream(out)) {
+                gzipStream.write(json);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
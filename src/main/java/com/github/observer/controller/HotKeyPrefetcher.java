@@ -0,0 +1,185 @@
+package com.github.observer.controller;
+
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.controller.HotKeySketch.HotKey;
+import com.github.observer.exception.RateLimitExceededException;
+import com.github.observer.service.ObserverService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Refreshes the results of the most requested keys, as counted by {@link HotKeySketch}, before they stop
+ * being fresh, so those users are always served from the result cache and their reloads happen at a
+ * steady pace rather than on their requests. Every {@code interval} the hottest keys are refreshed one
+ * at a time, as background work, while there is credit left: each tick adds {@code budget-share} of the
+ * remaining core rate-limit budget, spread over the ticks left until the window resets, and every
+ * refresh spends the GitHub calls it made. Credit does not build up beyond one tick's worth, or one
+ * call, so an idle period is not followed by a burst. Until GitHub has reported a budget, a budget of
+ * {@value #ASSUMED_HOURLY_BUDGET} calls an hour is assumed.
+ */
+@Slf4j
+@Component
+public class HotKeyPrefetcher implements SmartLifecycle {
+
+    private static final String CORE = "core";
+    private static final int ASSUMED_HOURLY_BUDGET = 5000;
+
+    private final HotKeySketch hotKeySketch;
+    private final ObserverService observerService;
+    private final RateLimitScheduler rateLimitScheduler;
+    private final boolean enabled;
+    private final Duration interval;
+    private final Duration lead;
+    private final int hotKeys;
+    private final double budgetShare;
+    private final Clock clock;
+    private double credit;
+    private Disposable ticks;
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong upstreamCalls = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    @Autowired
+    public HotKeyPrefetcher(HotKeySketch hotKeySketch, ObserverService observerService,
+                            RateLimitScheduler rateLimitScheduler,
+                            @Value("${observer.prefetch.enabled:true}") boolean enabled,
+                            @Value("${observer.prefetch.interval:PT10S}") Duration interval,
+                            @Value("${observer.prefetch.lead:PT1M}") Duration lead,
+                            @Value("${observer.prefetch.hot-keys:100}") int hotKeys,
+                            @Value("${observer.prefetch.budget-share:0.1}") double budgetShare) {
+        this(hotKeySketch, observerService, rateLimitScheduler, enabled, interval, lead, hotKeys, budgetShare,
+                Clock.systemUTC());
+    }
+
+    public HotKeyPrefetcher(HotKeySketch hotKeySketch, ObserverService observerService,
+                            RateLimitScheduler rateLimitScheduler, boolean enabled, Duration interval,
+                            Duration lead, int hotKeys, double budgetShare, Clock clock) {
+        this.hotKeySketch = hotKeySketch;
+        this.observerService = observerService;
+        this.rateLimitScheduler = rateLimitScheduler;
+        this.enabled = enabled;
+        this.interval = interval;
+        this.lead = lead;
+        this.hotKeys = hotKeys;
+        this.budgetShare = budgetShare;
+        this.clock = clock;
+    }
+
+    /**
+     * Runs one tick: refreshes the hottest keys that are close to expiry while credit lasts, and emits
+     * how many were reloaded. A key that fails is skipped; an exhausted background budget ends the tick.
+     */
+    public Mono<Long> prefetch() {
+        return Mono.defer(() -> {
+            accrue();
+            return Flux.fromIterable(hotKeySketch.hottest(hotKeys))
+                    .takeWhile(key -> hasCredit())
+                    .concatMap(this::refresh)
+                    .onErrorResume(RateLimitExceededException.class, e -> {
+                        log.debug("Stopping prefetch, background budget exhausted: {}", e.getMessage());
+                        return Flux.empty();
+                    })
+                    .filter(calls -> calls > 0)
+                    .count()
+                    .doOnNext(refreshes::addAndGet);
+        });
+    }
+
+    private Mono<Integer> refresh(HotKey key) {
+        return observerService.refreshAhead(key.username(), key.fork(), lead)
+                .onErrorResume(e -> !(e instanceof RateLimitExceededException), e -> {
+                    failures.incrementAndGet();
+                    log.warn("Prefetching repositories for user: {} failed: {}", key.username(), e.getMessage());
+                    // at least the call that failed was spent
+                    spend(1);
+                    return Mono.empty();
+                })
+                .doOnNext(this::spend);
+    }
+
+    /**
+     * Adds one tick's share of the remaining budget, spread evenly over the time left until it resets.
+     */
+    private synchronized void accrue() {
+        Integer remaining = rateLimitScheduler.getRemaining(CORE);
+        Instant resetAt = rateLimitScheduler.getResetAt(CORE);
+        Instant now = clock.instant();
+        double perTick;
+        if (remaining == null || remaining < 0 || resetAt == null || !resetAt.isAfter(now)) {
+            perTick = budgetShare * ASSUMED_HOURLY_BUDGET * interval.toMillis() / Duration.ofHours(1).toMillis();
+        } else {
+            long untilReset = Math.max(interval.toMillis(), Duration.between(now, resetAt).toMillis());
+            perTick = budgetShare * remaining * interval.toMillis() / untilReset;
+        }
+        credit = Math.min(credit + perTick, Math.max(perTick, 1));
+    }
+
+    private synchronized boolean hasCredit() {
+        return credit > 0;
+    }
+
+    private synchronized void spend(int calls) {
+        credit -= calls;
+        upstreamCalls.addAndGet(calls);
+    }
+
+    @Override
+    public synchronized void start() {
+        if (ticks == null) {
+            ticks = Flux.interval(interval, interval)
+                    .onBackpressureDrop()
+                    .concatMap(tick -> prefetch().onErrorResume(e -> {
+                        log.warn("Prefetch tick failed: {}", e.getMessage());
+                        return Mono.empty();
+                    }), 1)
+                    .subscribe();
+            log.info("Prefetching up to {} hot keys every {}", hotKeys, interval);
+        }
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (ticks != null) {
+            ticks.dispose();
+            ticks = null;
+        }
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return ticks != null;
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    public synchronized double getCredit() {
+        return credit;
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getUpstreamCalls() {
+        return upstreamCalls.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+}
@@ -0,0 +1,112 @@
+package com.github.observer.controller;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Approximate request frequency of {@code (username, fork)} keys. Counts go to a count-min sketch of
+ * four rows, which overestimates a key only by what colliding keys add, and the keys with the highest
+ * estimates are kept as candidates for {@link #hottest}. After every ten times {@code tracked-keys}
+ * requests all counts are halved, so a key that stops being requested cools down within a few periods
+ * and the sketch adapts to shifting traffic without growing.
+ */
+@Component
+public class HotKeySketch {
+
+    private static final int DEPTH = 4;
+    private static final int[] SEEDS = {0x9E3779B1, 0x85EBCA77, 0xC2B2AE3D, 0x27D4EB2F};
+
+    private final int trackedKeys;
+    private final int samplePeriod;
+    private final int[][] counts;
+    private final int mask;
+    private final Map<HotKey, Integer> candidates = new HashMap<>();
+    private int sampled;
+    private long decays;
+
+    public HotKeySketch(@Value("${observer.prefetch.tracked-keys:1000}") int trackedKeys) {
+        this.trackedKeys = trackedKeys;
+        this.samplePeriod = trackedKeys * 10;
+        int width = Integer.highestOneBit(Math.max(64, trackedKeys * 8) - 1) << 1;
+        this.counts = new int[DEPTH][width];
+        this.mask = width - 1;
+    }
+
+    public synchronized void record(String username, boolean fork) {
+        HotKey key = new HotKey(username, fork);
+        int hash = key.hashCode();
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, ++counts[row][indexOf(hash, row)]);
+        }
+        candidates.put(key, estimate);
+        if (++sampled >= samplePeriod) {
+            decay();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} keys, most frequently requested first.
+     */
+    public synchronized List<HotKey> hottest(int limit) {
+        return candidates.entrySet().stream()
+                .sorted(Map.Entry.<HotKey, Integer>comparingByValue().reversed())
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    public synchronized int estimate(String username, boolean fork) {
+        return estimate(new HotKey(username, fork).hashCode());
+    }
+
+    public synchronized int size() {
+        return candidates.size();
+    }
+
+    public synchronized long getDecays() {
+        return decays;
+    }
+
+    /**
+     * Halves every count and keeps the {@code tracked-keys} candidates that are still counted.
+     */
+    private void decay() {
+        for (int[] row : counts) {
+            for (int i = 0; i < row.length; i++) {
+                row[i] >>>= 1;
+            }
+        }
+        Map<HotKey, Integer> kept = new HashMap<>();
+        candidates.keySet().stream()
+                .map(key -> Map.entry(key, estimate(key.hashCode())))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<HotKey, Integer>comparingByValue().reversed())
+                .limit(trackedKeys)
+                .forEach(entry -> kept.put(entry.getKey(), entry.getValue()));
+        candidates.clear();
+        candidates.putAll(kept);
+        sampled = 0;
+        decays++;
+    }
+
+    private int estimate(int hash) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < DEPTH; row++) {
+            estimate = Math.min(estimate, counts[row][indexOf(hash, row)]);
+        }
+        return estimate;
+    }
+
+    private int indexOf(int hash, int row) {
+        int h = hash * SEEDS[row];
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    public record HotKey(String username, boolean fork) {
+    }
+}
@@ -1,15 +1,24 @@
 package com.github.observer.controller;
 
+import com.github.observer.controller.EncodedResponseCache.EncodedResponse;
+import com.github.observer.model.BatchResult;
 import com.github.observer.model.RepositoryDetails;
+import com.github.observer.model.RepositoryQuery;
 import com.github.observer.service.ObserverService;
+import com.github.observer.service.RepositoryBatchService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.util.List;
@@ -20,17 +29,76 @@ import java.util.List;
 public class ObserverController {
 
     private final ObserverService observerService;
+    private final RepositoryBatchService repositoryBatchService;
+    private final EncodedResponseCache encodedResponseCache;
+    private final HotKeySketch hotKeySketch;
 
-    public ObserverController(ObserverService observerService) {
+    public ObserverController(ObserverService observerService, RepositoryBatchService repositoryBatchService,
+                              EncodedResponseCache encodedResponseCache, HotKeySketch hotKeySketch) {
         this.observerService = observerService;
+        this.repositoryBatchService = repositoryBatchService;
+        this.encodedResponseCache = encodedResponseCache;
+        this.hotKeySketch = hotKeySketch;
     }
 
+    /**
+     * Writes the cached, already encoded body of the result. The response carries a strong ETag, so both
+     * web stacks answer a matching {@code If-None-Match} with {@code 304 Not Modified}.
+     */
     @GetMapping(value = "/{username}/{fork}", produces = MediaType.APPLICATION_JSON_VALUE)
-    public Mono<ResponseEntity<List<RepositoryDetails>>> getGithubRepositories(@PathVariable String username,
-                                                                               @PathVariable boolean fork) {
+    public Mono<ResponseEntity<byte[]>> getGithubRepositories(@PathVariable String username,
+                                                              @PathVariable boolean fork,
+                                                              @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false)
+                                                              String acceptEncoding) {
         log.debug("ObserverController execution with username: {}", username);
+        String userKey = ObserverService.userKey(username);
+        hotKeySketch.record(userKey, fork);
         return observerService.findRepositories(username, fork)
-                .map(ResponseEntity::ok)
+                .map(repositories -> encodedResponseCache.get(userKey + ":" + fork, repositories))
+                .map(response -> toResponseEntity(response, acceptsGzip(acceptEncoding)))
                 .defaultIfEmpty(ResponseEntity.notFound().build());
     }
+
+    @GetMapping(value = "/{username}/{fork}",
+            produces = {MediaType.APPLICATION_NDJSON_VALUE, MediaType.TEXT_EVENT_STREAM_VALUE})
+    public Flux<RepositoryDetails> streamGithubRepositories(@PathVariable String username,
+                                                            @PathVariable boolean fork) {
+        log.debug("ObserverController streaming execution with username: {}", username);
+        return observerService.streamRepositories(username, fork);
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BatchResult> getGithubRepositoriesBatch(@RequestBody List<RepositoryQuery> queries) {
+        log.debug("ObserverController batch execution with {} queries", queries.size());
+        queries.stream()
+                .filter(query -> query.getUsername() != null && !query.getUsername().isBlank())
+                .forEach(query -> hotKeySketch.record(ObserverService.userKey(query.getUsername()), query.isFork()));
+        return repositoryBatchService.findRepositories(queries);
+    }
+
+    private static ResponseEntity<byte[]> toResponseEntity(EncodedResponse response, boolean gzip) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (gzip && response.isCompressible()) {
+            return builder.eTag(response.gzipEtag())
+                    .header(HttpHeaders.CONTENT_ENCODING, "gzip")
+                    .body(response.gzip());
+        }
+        return builder.eTag(response.etag()).body(response.json());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                return parts.length == 1 || !parts[1].trim().matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
 }
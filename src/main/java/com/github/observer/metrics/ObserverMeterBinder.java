@@ -0,0 +1,187 @@
+package com.github.observer.metrics;
+
+import com.github.observer.client.AdaptiveTimeouts;
+import com.github.observer.client.ConditionalRequestCache;
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.controller.EncodedResponseCache;
+import com.github.observer.controller.HotKeyPrefetcher;
+import com.github.observer.controller.HotKeySketch;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.BranchCache;
+import com.github.observer.service.NegativeResultCache;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import com.github.observer.snapshot.SnapshotStore;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Publishes the counters the caches, the snapshot store, the concurrency governor, the adaptive
+ * timeouts, the rate-limit scheduler, the token pool and the prefetcher already keep. Caches use
+ * Micrometer's {@code cache.*} names with a {@code cache} tag.
+ */
+@Component
+public class ObserverMeterBinder implements MeterBinder {
+
+    private final UpstreamConcurrencyGovernor concurrencyGovernor;
+    private final AdaptiveTimeouts adaptiveTimeouts;
+    private final StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache;
+    private final NegativeResultCache negativeResultCache;
+    private final BranchCache branchCache;
+    private final EncodedResponseCache encodedResponseCache;
+    private final ConditionalRequestCache conditionalRequestCache;
+    private final SnapshotStore snapshotStore;
+    private final RateLimitScheduler rateLimitScheduler;
+    private final GithubTokenPool githubTokenPool;
+    private final HotKeySketch hotKeySketch;
+    private final HotKeyPrefetcher hotKeyPrefetcher;
+
+    public ObserverMeterBinder(UpstreamConcurrencyGovernor concurrencyGovernor,
+                               AdaptiveTimeouts adaptiveTimeouts,
+                               StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache,
+                               NegativeResultCache negativeResultCache,
+                               BranchCache branchCache,
+                               EncodedResponseCache encodedResponseCache,
+                               ConditionalRequestCache conditionalRequestCache,
+                               SnapshotStore snapshotStore,
+                               RateLimitScheduler rateLimitScheduler,
+                               GithubTokenPool githubTokenPool,
+                               HotKeySketch hotKeySketch,
+                               HotKeyPrefetcher hotKeyPrefetcher) {
+        this.concurrencyGovernor = concurrencyGovernor;
+        this.adaptiveTimeouts = adaptiveTimeouts;
+        this.repositoryDetailsCache = repositoryDetailsCache;
+        this.negativeResultCache = negativeResultCache;
+        this.branchCache = branchCache;
+        this.encodedResponseCache = encodedResponseCache;
+        this.conditionalRequestCache = conditionalRequestCache;
+        this.snapshotStore = snapshotStore;
+        this.rateLimitScheduler = rateLimitScheduler;
+        this.githubTokenPool = githubTokenPool;
+        this.hotKeySketch = hotKeySketch;
+        this.hotKeyPrefetcher = hotKeyPrefetcher;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("observer.upstream.in.flight", concurrencyGovernor,
+                        governor -> governor.getMaxConcurrency() - governor.getAvailablePermits())
+                .description("GitHub calls holding an upstream permit")
+                .register(registry);
+        Gauge.builder("observer.upstream.queued", concurrencyGovernor, UpstreamConcurrencyGovernor::getQueueLength)
+                .description("GitHub calls waiting for an upstream permit")
+                .register(registry);
+        counter(registry, "observer.upstream.acquisitions", "Upstream permits granted",
+                concurrencyGovernor, UpstreamConcurrencyGovernor::getAcquisitions);
+        FunctionTimer.builder("observer.upstream.permit.wait", concurrencyGovernor,
+                        UpstreamConcurrencyGovernor::getQueuedAcquisitions,
+                        UpstreamConcurrencyGovernor::getTotalWaitNanos, TimeUnit.NANOSECONDS)
+                .description("Time GitHub calls waited for an upstream permit, over the calls that had to wait")
+                .register(registry);
+        for (String endpoint : AdaptiveTimeouts.ENDPOINTS) {
+            Gauge.builder("observer.upstream.timeout", adaptiveTimeouts,
+                            timeouts -> timeouts.timeout(endpoint).toNanos() / 1e9)
+                    .description("Current timeout of GitHub calls to the endpoint")
+                    .baseUnit("seconds")
+                    .tag("endpoint", endpoint)
+                    .register(registry);
+        }
+        counter(registry, "observer.upstream.timeouts", "GitHub calls that timed out",
+                adaptiveTimeouts, AdaptiveTimeouts::getTimeouts);
+        counter(registry, "observer.upstream.hedges", "GitHub calls sent a second time after their p95",
+                adaptiveTimeouts, AdaptiveTimeouts::getHedges);
+        counter(registry, "observer.upstream.hedge.wins", "Hedged GitHub calls answered first by the second request",
+                adaptiveTimeouts, AdaptiveTimeouts::getHedgeWins);
+
+        cacheGets(registry, "repository-details", "hit", repositoryDetailsCache, StaleWhileRevalidateCache::getHits);
+        cacheGets(registry, "repository-details", "stale", repositoryDetailsCache, StaleWhileRevalidateCache::getStaleHits);
+        cacheGets(registry, "repository-details", "miss", repositoryDetailsCache, StaleWhileRevalidateCache::getMisses);
+        cacheGets(registry, "repository-details", "restored", repositoryDetailsCache, StaleWhileRevalidateCache::getRestores);
+        cacheEvictions(registry, "repository-details", repositoryDetailsCache, StaleWhileRevalidateCache::getEvictions);
+        cacheSize(registry, "repository-details", repositoryDetailsCache, StaleWhileRevalidateCache::size);
+        counter(registry, "observer.cache.refresh.failures", "Background refreshes of stale entries that failed",
+                repositoryDetailsCache, StaleWhileRevalidateCache::getRefreshFailures);
+
+        cacheGets(registry, "negative-results", "hit", negativeResultCache, NegativeResultCache::getHits);
+        cacheEvictions(registry, "negative-results", negativeResultCache, NegativeResultCache::getEvictions);
+        cacheSize(registry, "negative-results", negativeResultCache, NegativeResultCache::size);
+
+        cacheGets(registry, "repository-branches", "hit", branchCache, BranchCache::getHits);
+        cacheGets(registry, "repository-branches", "miss", branchCache, BranchCache::getMisses);
+        cacheEvictions(registry, "repository-branches", branchCache, BranchCache::getEvictions);
+        cacheSize(registry, "repository-branches", branchCache, BranchCache::size);
+
+        cacheGets(registry, "response-bodies", "hit", encodedResponseCache, EncodedResponseCache::getHits);
+        cacheGets(registry, "response-bodies", "miss", encodedResponseCache, EncodedResponseCache::getMisses);
+        cacheEvictions(registry, "response-bodies", encodedResponseCache, EncodedResponseCache::getEvictions);
+        cacheSize(registry, "response-bodies", encodedResponseCache, EncodedResponseCache::size);
+
+        cacheGets(registry, "github-http", "hit", conditionalRequestCache, ConditionalRequestCache::getHits);
+        cacheGets(registry, "github-http", "miss", conditionalRequestCache, ConditionalRequestCache::getMisses);
+        cacheEvictions(registry, "github-http", conditionalRequestCache, ConditionalRequestCache::getEvictions);
+
+        Gauge.builder("observer.snapshot.entries", snapshotStore, SnapshotStore::size)
+                .description("Entries in the on-disk snapshot")
+                .register(registry);
+        Gauge.builder("observer.snapshot.used", snapshotStore, SnapshotStore::getUsedBytes)
+                .description("Bytes of the snapshot file holding records")
+                .baseUnit("bytes")
+                .register(registry);
+        counter(registry, "observer.snapshot.compactions", "Rewrites of a full snapshot file",
+                snapshotStore, SnapshotStore::getCompactions);
+        counter(registry, "observer.snapshot.dropped", "Snapshot entries not kept for lack of space",
+                snapshotStore, SnapshotStore::getDropped);
+        counter(registry, "observer.snapshot.corrupted", "Snapshot entries that failed their checksum",
+                snapshotStore, SnapshotStore::getCorrupted);
+
+        counter(registry, "observer.rate.limit.delayed", "GitHub calls held back to protect the rate-limit reserve",
+                rateLimitScheduler, RateLimitScheduler::getDelayed);
+        counter(registry, "observer.rate.limit.shed", "GitHub calls rejected because the rate limit was exhausted",
+                rateLimitScheduler, RateLimitScheduler::getShed);
+        Gauge.builder("observer.github.tokens", githubTokenPool, GithubTokenPool::size)
+                .description("GitHub tokens in the pool")
+                .register(registry);
+
+        Gauge.builder("observer.prefetch.hot.keys", hotKeySketch, HotKeySketch::size)
+                .description("Keys tracked as candidates for prefetching")
+                .register(registry);
+        Gauge.builder("observer.prefetch.credit", hotKeyPrefetcher, HotKeyPrefetcher::getCredit)
+                .description("GitHub calls the prefetcher may still spend")
+                .register(registry);
+        counter(registry, "observer.prefetch.refreshes", "Results reloaded ahead of expiry",
+                hotKeyPrefetcher, HotKeyPrefetcher::getRefreshes);
+        counter(registry, "observer.prefetch.upstream.calls", "GitHub calls spent on prefetching",
+                hotKeyPrefetcher, HotKeyPrefetcher::getUpstreamCalls);
+        counter(registry, "observer.prefetch.failures", "Prefetches that failed",
+                hotKeyPrefetcher, HotKeyPrefetcher::getFailures);
+    }
+
+    private static <T> void counter(MeterRegistry registry, String name, String description, T source,
+                                    ToDoubleFunction<T> count) {
+        FunctionCounter.builder(name, source, count).description(description).register(registry);
+    }
+
+    private static <T> void cacheGets(MeterRegistry registry, String cache, String result, T source,
+                                      ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.gets", source, count)
+                .tags("cache", cache, "result", result)
+                .register(registry);
+    }
+
+    private static <T> void cacheEvictions(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> count) {
+        FunctionCounter.builder("cache.evictions", source, count).tag("cache", cache).register(registry);
+    }
+
+    private static <T> void cacheSize(MeterRegistry registry, String cache, T source, ToDoubleFunction<T> size) {
+        Gauge.builder("cache.size", source, size).tag("cache", cache).register(registry);
+    }
+}
@@ -0,0 +1,127 @@
+package com.github.observer.metrics;
+
+import com.github.observer.model.RepositoryDetails;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.SignalType;
+import reactor.util.context.Context;
+import reactor.util.context.ContextView;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Meters for one repository fetch, the work behind a result-cache miss: its duration and outcome, how
+ * many GitHub calls it made, and how many repositories and branches it returned. Upstream calls are
+ * counted through a counter carried in the Reactor context, which this filter increments for every
+ * {@code WebClient} exchange and the blocking engine increments through {@link #upstreamCallCounter}.
+ * Per-endpoint upstream latency comes from Spring Boot's {@code http.client.requests} observation.
+ */
+@Component
+public class PipelineMetrics implements ExchangeFilterFunction {
+
+    private static final String UPSTREAM_CALLS = PipelineMetrics.class.getName() + ".upstreamCalls";
+    private static final String CHARGED_CALLS = PipelineMetrics.class.getName() + ".chargedCalls";
+
+    private final MeterRegistry meterRegistry;
+    private final DistributionSummary upstreamCalls;
+    private final DistributionSummary repositories;
+    private final DistributionSummary branches;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    public PipelineMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        this.upstreamCalls = DistributionSummary.builder("observer.fetch.upstream.calls")
+                .description("GitHub calls made by one repository fetch")
+                .register(meterRegistry);
+        this.repositories = DistributionSummary.builder("observer.fetch.repositories")
+                .description("Repositories returned by one repository fetch")
+                .register(meterRegistry);
+        this.branches = DistributionSummary.builder("observer.fetch.branches")
+                .description("Branches returned by one repository fetch")
+                .register(meterRegistry);
+        meterRegistry.gauge("observer.fetch.in.flight", inFlight);
+    }
+
+    /**
+     * Times the fetch from subscription to termination and records its totals once it ends.
+     */
+    public Flux<RepositoryDetails> record(Flux<RepositoryDetails> fetch) {
+        return Flux.deferContextual(outer -> {
+            AtomicInteger charged = outer.getOrDefault(CHARGED_CALLS, null);
+            AtomicInteger calls = new AtomicInteger();
+            AtomicInteger repositoryCount = new AtomicInteger();
+            AtomicInteger branchCount = new AtomicInteger();
+            Timer.Sample sample = Timer.start(meterRegistry);
+            inFlight.incrementAndGet();
+            Consumer<SignalType> finish = signal -> {
+                inFlight.decrementAndGet();
+                sample.stop(Timer.builder("observer.fetch")
+                        .description("Time to fetch one user's repositories from GitHub")
+                        .tag("outcome", outcome(signal))
+                        .register(meterRegistry));
+                upstreamCalls.record(calls.get());
+                if (charged != null) {
+                    charged.addAndGet(calls.get());
+                }
+                if (signal == SignalType.ON_COMPLETE) {
+                    repositories.record(repositoryCount.get());
+                    branches.record(branchCount.get());
+                }
+            };
+            // recorded before the terminal signal is passed on, so the metrics are complete when a caller sees it
+            return fetch
+                    .doOnNext(repository -> {
+                        repositoryCount.incrementAndGet();
+                        branchCount.addAndGet(repository.getBranches().size());
+                    })
+                    .doOnComplete(() -> finish.accept(SignalType.ON_COMPLETE))
+                    .doOnError(error -> finish.accept(SignalType.ON_ERROR))
+                    .doOnCancel(() -> finish.accept(SignalType.CANCEL))
+                    .contextWrite(context -> context.put(UPSTREAM_CALLS, calls));
+        });
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        return Mono.deferContextual(context -> {
+            upstreamCallCounter(context).run();
+            return next.exchange(request);
+        });
+    }
+
+    /**
+     * Adds the GitHub calls of every fetch recorded under the decorated publisher to {@code calls}, for
+     * callers that spend a budget of calls.
+     */
+    public static Function<Context, Context> chargeUpstreamCallsTo(AtomicInteger calls) {
+        return context -> context.put(CHARGED_CALLS, calls);
+    }
+
+    /**
+     * Returns the action that counts one upstream call against the fetch recorded in {@code context},
+     * or one that does nothing outside a recorded fetch.
+     */
+    public static Runnable upstreamCallCounter(ContextView context) {
+        AtomicInteger calls = context.getOrDefault(UPSTREAM_CALLS, null);
+        return calls == null ? () -> {
+        } : calls::incrementAndGet;
+    }
+
+    private static String outcome(SignalType signal) {
+        return switch (signal) {
+            case ON_COMPLETE -> "success";
+            case ON_ERROR -> "error";
+            default -> "cancelled";
+        };
+    }
+}
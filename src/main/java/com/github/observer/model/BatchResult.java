@@ -0,0 +1,34 @@
+package com.github.observer.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.*;
+
+import java.util.List;
+
+/**
+ * Outcome of one query in a batch: the repositories with status 200, or the status and message the
+ * single-user endpoint would have answered with.
+ */
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchResult {
+
+    private String username;
+    private boolean fork;
+    private int status;
+    private List<RepositoryDetails> repositories;
+    private String message;
+
+    public static BatchResult found(RepositoryQuery query, List<RepositoryDetails> repositories) {
+        return new BatchResult(query.getUsername(), query.isFork(), 200, repositories, null);
+    }
+
+    public static BatchResult failed(RepositoryQuery query, int status, String message) {
+        return new BatchResult(query.getUsername(), query.isFork(), status, null, message);
+    }
+}
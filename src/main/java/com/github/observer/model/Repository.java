@@ -1,5 +1,6 @@
 package com.github.observer.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.*;
 
 @Getter
@@ -13,4 +14,12 @@ public class Repository {
     private String name;
     private Owner owner;
     private boolean fork;
+    @JsonProperty("pushed_at")
+    private String pushedAt;
+    @JsonProperty("updated_at")
+    private String updatedAt;
+
+    public Repository(String name, Owner owner, boolean fork) {
+        this(name, owner, fork, null, null);
+    }
 }
@@ -0,0 +1,15 @@
+package com.github.observer.model;
+
+import lombok.*;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@EqualsAndHashCode
+@ToString
+public class RepositoryQuery {
+
+    private String username;
+    private boolean fork;
+}
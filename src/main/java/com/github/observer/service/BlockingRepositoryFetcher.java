@@ -0,0 +1,200 @@
+package com.github.observer.service;
+
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.Branch;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.Repository;
+import com.github.observer.model.RepositoryDetails;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.IntStream;
+
+/**
+ * Fetches repositories through the GitHub REST API with plain blocking calls on virtual threads. A
+ * request runs top to bottom on one virtual thread, and the extra pages and the per-repository branch
+ * listings fan out to child virtual threads that are all joined, or cancelled on the first failure,
+ * before the request continues. Stack traces and profiles therefore show ordinary method frames instead
+ * of Reactor operators. Calls share the same rate-limit scheduler, token pool, upstream permits and
+ * {@link BranchCache} as the reactive engines.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "observer.fetcher", havingValue = "blocking")
+public class BlockingRepositoryFetcher implements RepositoryFetcher, DisposableBean {
+
+    private static final ParameterizedTypeReference<List<Repository>> REPOSITORIES = new ParameterizedTypeReference<>() {
+    };
+    private static final ParameterizedTypeReference<List<Branch>> BRANCHES = new ParameterizedTypeReference<>() {
+    };
+
+    private final RestClient observerRestClient;
+    private final UpstreamConcurrencyGovernor concurrencyGovernor;
+    private final BranchCache branchCache;
+    private final int pageSize;
+    private final Scheduler virtualThreads = Schedulers.fromExecutorService(
+            Executors.newVirtualThreadPerTaskExecutor(), "github-virtual");
+
+    public BlockingRepositoryFetcher(RestClient observerRestClient, UpstreamConcurrencyGovernor concurrencyGovernor,
+                                     int pageSize) {
+        this(observerRestClient, concurrencyGovernor, new BranchCache(0), pageSize);
+    }
+
+    @Autowired
+    public BlockingRepositoryFetcher(RestClient observerRestClient,
+                                     UpstreamConcurrencyGovernor concurrencyGovernor,
+                                     BranchCache branchCache,
+                                     @Value("${observer.pagination.page-size:100}") int pageSize) {
+        this.observerRestClient = observerRestClient;
+        this.concurrencyGovernor = concurrencyGovernor;
+        this.branchCache = branchCache;
+        this.pageSize = pageSize;
+    }
+
+    @Override
+    public Flux<RepositoryDetails> fetchRepositories(String username, boolean fork) {
+        return Mono.deferContextual(context -> {
+                    Runnable onUpstreamCall = PipelineMetrics.upstreamCallCounter(context);
+                    return Mono.fromCallable(() -> fetchAll(username, fork, onUpstreamCall));
+                })
+                .subscribeOn(virtualThreads)
+                .flatMapIterable(repositories -> repositories);
+    }
+
+    private List<RepositoryDetails> fetchAll(String username, boolean fork, Runnable onUpstreamCall)
+            throws Exception {
+        List<Repository> repositories = fetchPages("/users/{username}/repos", REPOSITORIES, true, onUpstreamCall,
+                username).stream()
+                .filter(repository -> repository.isFork() == fork)
+                .toList();
+        return forkJoin(repositories, repository -> toRepositoryDetails(repository, onUpstreamCall));
+    }
+
+    private RepositoryDetails toRepositoryDetails(Repository repository, Runnable onUpstreamCall) throws Exception {
+        String owner = repository.getOwner().getLogin();
+        List<BranchDetails> unchanged = branchCache.get(repository);
+        if (unchanged != null) {
+            return new RepositoryDetails(repository.getName(), owner, unchanged);
+        }
+        List<BranchDetails> branches = fetchPages("/repos/{owner}/{repo}/branches", BRANCHES, false, onUpstreamCall,
+                owner, repository.getName()).stream()
+                .map(branch -> new BranchDetails(branch.getName(), branch.getCommit().getSha()))
+                .toList();
+        branchCache.put(repository, branches);
+        return new RepositoryDetails(repository.getName(), owner, branches);
+    }
+
+    private <T> List<T> fetchPages(String uriTemplate, ParameterizedTypeReference<List<T>> type,
+                                   boolean userListing, Runnable onUpstreamCall, Object... uriVariables)
+            throws Exception {
+        ResponseEntity<List<T>> firstPage = fetchPage(uriTemplate, type, userListing, onUpstreamCall, 1, uriVariables);
+        List<T> items = new ArrayList<>(bodyOf(firstPage));
+        int lastPage = GithubPaginator.lastPage(firstPage.getHeaders());
+        if (lastPage > 1) {
+            log.debug("Fetching {} more pages of {}", lastPage - 1, uriTemplate);
+            List<Integer> pages = IntStream.rangeClosed(2, lastPage).boxed().toList();
+            forkJoin(pages, page -> bodyOf(fetchPage(uriTemplate, type, userListing, onUpstreamCall, page,
+                    uriVariables)))
+                    .forEach(items::addAll);
+        }
+        return items;
+    }
+
+    private <T> ResponseEntity<List<T>> fetchPage(String uriTemplate, ParameterizedTypeReference<List<T>> type,
+                                                  boolean userListing, Runnable onUpstreamCall, int page,
+                                                  Object... uriVariables) throws Exception {
+        Object[] variables = Arrays.copyOf(uriVariables, uriVariables.length + 2);
+        variables[uriVariables.length] = pageSize;
+        variables[uriVariables.length + 1] = page;
+        return concurrencyGovernor.call(() -> {
+            onUpstreamCall.run();
+            RestClient.ResponseSpec responseSpec = observerRestClient.get()
+                    .uri(uriTemplate + "?per_page={perPage}&page={page}", variables)
+                    .retrieve();
+            if (userListing) {
+                responseSpec = responseSpec.onStatus(status -> status.isSameCodeAs(HttpStatus.NOT_FOUND), (request, response) -> {
+                    throw new UserNotFoundException("User not found: " + uriVariables[0]);
+                });
+            }
+            return responseSpec.toEntity(type);
+        });
+    }
+
+    /**
+     * Runs one child virtual thread per item, at most the per-request concurrency of them calling at once,
+     * and returns the results in item order. Children are joined as they finish, so the first failure,
+     * whichever child it comes from, cancels the remaining children and is rethrown as it was thrown.
+     */
+    private <T, R> List<R> forkJoin(List<T> items, Task<T, R> task) throws Exception {
+        Semaphore concurrency = new Semaphore(concurrencyGovernor.getPerRequestConcurrency());
+        try (ExecutorService scope = Executors.newVirtualThreadPerTaskExecutor()) {
+            CompletionService<R> completed = new ExecutorCompletionService<>(scope);
+            List<Future<R>> futures = items.stream()
+                    .map(item -> completed.submit(() -> {
+                        concurrency.acquire();
+                        try {
+                            return task.apply(item);
+                        } finally {
+                            concurrency.release();
+                        }
+                    }))
+                    .toList();
+            try {
+                for (int i = 0; i < futures.size(); i++) {
+                    completed.take().get();
+                }
+            } catch (ExecutionException e) {
+                scope.shutdownNow();
+                if (e.getCause() instanceof Error error) {
+                    throw error;
+                }
+                throw e.getCause() instanceof Exception cause ? cause : e;
+            } catch (InterruptedException e) {
+                scope.shutdownNow();
+                throw e;
+            }
+            List<R> results = new ArrayList<>(futures.size());
+            for (Future<R> future : futures) {
+                results.add(future.resultNow());
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        virtualThreads.dispose();
+    }
+
+    private static <T> List<T> bodyOf(ResponseEntity<List<T>> response) {
+        return response.getBody() == null ? List.of() : response.getBody();
+    }
+
+    @FunctionalInterface
+    private interface Task<T, R> {
+        R apply(T item) throws Exception;
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.observer.service;
+
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.Repository;
+import com.github.observer.snapshot.BranchDetailsCodec;
+import com.github.observer.snapshot.SnapshotCodec;
+import com.github.observer.snapshot.SnapshotStore;
+import com.github.observer.snapshot.SnapshotView;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Branch listings of repositories, each kept with the repository's {@code pushed_at} and
+ * {@code updated_at} from the listing it was fetched for. A pushed branch moves {@code pushed_at} and a
+ * renamed default branch moves {@code updated_at}, so while both are unchanged the kept listing is still
+ * current and the REST engines skip the repository's {@code /branches} calls. Repositories listed
+ * without timestamps are never kept. Listings are also written to the {@link SnapshotStore}, so they
+ * outlive the in-memory bound and restarts.
+ */
+@Component
+public class BranchCache {
+
+    private final Map<String, Versioned> entries;
+    private final SnapshotView<Versioned> snapshot;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public BranchCache(@Value("${observer.branch-cache.max-entries:50000}") int maxEntries,
+                       SnapshotStore snapshotStore) {
+        this.snapshot = snapshotStore.view("branches:", new VersionedCodec());
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Versioned> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public BranchCache(int maxEntries) {
+        this(maxEntries, SnapshotStore.disabled());
+    }
+
+    /**
+     * Returns the kept branches when the repository has not changed since they were fetched, otherwise
+     * {@code null}.
+     */
+    public List<BranchDetails> get(Repository repository) {
+        String version = versionOf(repository);
+        if (version == null) {
+            return null;
+        }
+        String key = keyOf(repository);
+        Versioned kept;
+        synchronized (this) {
+            kept = entries.get(key);
+        }
+        if (kept == null) {
+            SnapshotView.Stored<Versioned> stored = snapshot.load(key);
+            if (stored != null) {
+                kept = stored.value();
+                synchronized (this) {
+                    entries.putIfAbsent(key, kept);
+                }
+            }
+        }
+        if (kept == null || !kept.version().equals(version)) {
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return kept.branches();
+    }
+
+    public void put(Repository repository, List<BranchDetails> branches) {
+        String version = versionOf(repository);
+        if (version == null) {
+            return;
+        }
+        String key = keyOf(repository);
+        Versioned versioned = new Versioned(version, List.copyOf(branches));
+        synchronized (this) {
+            entries.put(key, versioned);
+        }
+        snapshot.save(key, versioned, System.currentTimeMillis());
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static String keyOf(Repository repository) {
+        return repository.getOwner().getLogin() + "/" + repository.getName();
+    }
+
+    private static String versionOf(Repository repository) {
+        if (repository.getPushedAt() == null || repository.getUpdatedAt() == null) {
+            return null;
+        }
+        return repository.getPushedAt() + "|" + repository.getUpdatedAt();
+    }
+
+    private record Versioned(String version, List<BranchDetails> branches) {
+    }
+
+    private static class VersionedCodec implements SnapshotCodec<Versioned> {
+
+        private final BranchDetailsCodec branchCodec = new BranchDetailsCodec();
+
+        @Override
+        public void write(Versioned versioned, DataOutput out) throws IOException {
+            out.writeUTF(versioned.version());
+            branchCodec.write(versioned.branches(), out);
+        }
+
+        @Override
+        public Versioned read(DataInput in) throws IOException {
+            return new Versioned(in.readUTF(), branchCodec.read(in));
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package com.github.observer.service;
+
+import com.github.observer.client.AdaptiveTimeouts;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Reads every page of a GitHub list endpoint. The first page is requested with {@code per_page}
+ * set to the configured page size, the {@code last} relation of its {@code Link} header tells how
+ * many pages exist, and the remaining pages are fetched concurrently while keeping page order.
+ */
+@Slf4j
+@Component
+public class GithubPaginator {
+
+    private static final Pattern LAST_PAGE_LINK = Pattern.compile("<([^>]+)>\\s*;\\s*rel=\"last\"");
+
+    private final WebClient observerWebClient;
+    private final UpstreamConcurrencyGovernor concurrencyGovernor;
+    private final int pageSize;
+    private final int pageConcurrency;
+    private final AdaptiveTimeouts adaptiveTimeouts;
+
+    public GithubPaginator(WebClient observerWebClient, UpstreamConcurrencyGovernor concurrencyGovernor,
+                           int pageSize, int pageConcurrency) {
+        this(observerWebClient, concurrencyGovernor, pageSize, pageConcurrency, AdaptiveTimeouts.disabled());
+    }
+
+    @Autowired
+    public GithubPaginator(WebClient observerWebClient,
+                           UpstreamConcurrencyGovernor concurrencyGovernor,
+                           @Value("${observer.pagination.page-size:100}") int pageSize,
+                           @Value("${observer.pagination.concurrency:4}") int pageConcurrency,
+                           AdaptiveTimeouts adaptiveTimeouts) {
+        this.observerWebClient = observerWebClient;
+        this.concurrencyGovernor = concurrencyGovernor;
+        this.pageSize = pageSize;
+        this.pageConcurrency = pageConcurrency;
+        this.adaptiveTimeouts = adaptiveTimeouts;
+    }
+
+    public <T> Flux<T> fetchAll(String uriTemplate, Class<T> elementType, Object... uriVariables) {
+        return fetchAll(uriTemplate, elementType, null, null, uriVariables);
+    }
+
+    /**
+     * Like {@link #fetchAll(String, Class, Object...)}, with every page request hedged through
+     * {@link AdaptiveTimeouts#hedge}. Only for endpoints whose GETs are safe to send twice.
+     */
+    public <T> Flux<T> fetchAllHedged(String uriTemplate, Class<T> elementType, Object... uriVariables) {
+        return fetchAll(uriTemplate, elementType, null, null, true, uriVariables);
+    }
+
+    public <T> Flux<T> fetchAll(String uriTemplate, Class<T> elementType,
+                                Predicate<HttpStatusCode> statusPredicate,
+                                Function<ClientResponse, Mono<? extends Throwable>> exceptionFunction,
+                                Object... uriVariables) {
+        return fetchAll(uriTemplate, elementType, statusPredicate, exceptionFunction, false, uriVariables);
+    }
+
+    private <T> Flux<T> fetchAll(String uriTemplate, Class<T> elementType,
+                                 Predicate<HttpStatusCode> statusPredicate,
+                                 Function<ClientResponse, Mono<? extends Throwable>> exceptionFunction,
+                                 boolean hedged, Object... uriVariables) {
+        return fetchPage(uriTemplate, elementType, statusPredicate, exceptionFunction, hedged, 1, uriVariables)
+                .flatMapMany(firstPage -> {
+                    Flux<T> first = Flux.fromIterable(bodyOf(firstPage));
+                    int lastPage = lastPage(firstPage.getHeaders());
+                    if (lastPage <= 1) {
+                        return first;
+                    }
+                    log.debug("Fetching {} more pages of {}", lastPage - 1, uriTemplate);
+                    return first.concatWith(Flux.range(2, lastPage - 1)
+                            .flatMapSequential(page -> fetchPage(uriTemplate, elementType, statusPredicate,
+                                    exceptionFunction, hedged, page, uriVariables)
+                                    .flatMapIterable(GithubPaginator::bodyOf), pageConcurrency));
+                });
+    }
+
+    private <T> Mono<ResponseEntity<List<T>>> fetchPage(String uriTemplate, Class<T> elementType,
+                                                        Predicate<HttpStatusCode> statusPredicate,
+                                                        Function<ClientResponse, Mono<? extends Throwable>> exceptionFunction,
+                                                        boolean hedged, int page, Object... uriVariables) {
+        WebClient.ResponseSpec responseSpec = observerWebClient.get()
+                .uri(uriTemplate + "?per_page={perPage}&page={page}", withPaging(uriVariables, page))
+                .retrieve();
+        if (statusPredicate != null) {
+            responseSpec = responseSpec.onStatus(statusPredicate, exceptionFunction);
+        }
+        Mono<ResponseEntity<List<T>>> call = responseSpec.toEntityList(elementType);
+        if (!hedged) {
+            return concurrencyGovernor.run(call);
+        }
+        // the hedge delay runs once the first attempt holds its permit; the second attempt queues for its own
+        return concurrencyGovernor.run(adaptiveTimeouts.hedge(AdaptiveTimeouts.endpointOf(uriTemplate), call,
+                concurrencyGovernor.run(call)));
+    }
+
+    private Object[] withPaging(Object[] uriVariables, int page) {
+        Object[] variables = Arrays.copyOf(uriVariables, uriVariables.length + 2);
+        variables[uriVariables.length] = pageSize;
+        variables[uriVariables.length + 1] = page;
+        return variables;
+    }
+
+    static int lastPage(HttpHeaders headers) {
+        String link = headers.getFirst(HttpHeaders.LINK);
+        if (link == null) {
+            return 1;
+        }
+        Matcher matcher = LAST_PAGE_LINK.matcher(link);
+        if (!matcher.find()) {
+            return 1;
+        }
+        String page = UriComponentsBuilder.fromUriString(matcher.group(1)).build()
+                .getQueryParams().getFirst("page");
+        try {
+            return page == null ? 1 : Integer.parseInt(page);
+        } catch (NumberFormatException e) {
+            log.warn("Unexpected last page in Link header: {}", link);
+            return 1;
+        }
+    }
+
+    private static <T> List<T> bodyOf(ResponseEntity<List<T>> response) {
+        return response.getBody() == null ? List.of() : response.getBody();
+    }
+}
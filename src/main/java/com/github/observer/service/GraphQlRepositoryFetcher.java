@@ -0,0 +1,162 @@
+package com.github.observer.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.RepositoryDetails;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fetches repositories through the GitHub GraphQL API. Repositories, their owner and the head commit
+ * of every branch come back together, one page of repositories per query, so a user costs
+ * {@code ceil(repositories / page size)} requests instead of one request per repository. Only
+ * repositories with more branches than fit in the first page of refs need an extra query.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "observer.fetcher", havingValue = "graphql")
+public class GraphQlRepositoryFetcher implements RepositoryFetcher {
+
+    static final String REPOSITORIES_QUERY = """
+            query($login: String!, $isFork: Boolean!, $first: Int!, $refsFirst: Int!, $cursor: String) {
+              repositoryOwner(login: $login) {
+                repositories(first: $first, after: $cursor, isFork: $isFork, ownerAffiliations: OWNER) {
+                  pageInfo { hasNextPage endCursor }
+                  nodes {
+                    name
+                    owner { login }
+                    refs(refPrefix: "refs/heads/", first: $refsFirst) {
+                      pageInfo { hasNextPage endCursor }
+                      nodes { name target { oid } }
+                    }
+                  }
+                }
+              }
+            }""";
+
+    static final String BRANCHES_QUERY = """
+            query($owner: String!, $name: String!, $refsFirst: Int!, $cursor: String) {
+              repository(owner: $owner, name: $name) {
+                refs(refPrefix: "refs/heads/", first: $refsFirst, after: $cursor) {
+                  pageInfo { hasNextPage endCursor }
+                  nodes { name target { oid } }
+                }
+              }
+            }""";
+
+    private final WebClient observerWebClient;
+    private final UpstreamConcurrencyGovernor concurrencyGovernor;
+    private final int repositoryPageSize;
+    private final int branchPageSize;
+
+    public GraphQlRepositoryFetcher(WebClient observerWebClient,
+                                    UpstreamConcurrencyGovernor concurrencyGovernor,
+                                    @Value("${observer.graphql.repository-page-size:50}") int repositoryPageSize,
+                                    @Value("${observer.graphql.branch-page-size:100}") int branchPageSize) {
+        this.observerWebClient = observerWebClient;
+        this.concurrencyGovernor = concurrencyGovernor;
+        this.repositoryPageSize = repositoryPageSize;
+        this.branchPageSize = branchPageSize;
+    }
+
+    @Override
+    public Flux<RepositoryDetails> fetchRepositories(String username, boolean fork) {
+        return fetchRepositoryPage(username, fork, null)
+                .expand(page -> hasNextPage(page) ? fetchRepositoryPage(username, fork, endCursor(page)) : Mono.empty())
+                .concatMapIterable(page -> page.path("nodes"))
+                .flatMap(this::toRepositoryDetails, concurrencyGovernor.getPerRequestConcurrency());
+    }
+
+    private Mono<JsonNode> fetchRepositoryPage(String username, boolean fork, String cursor) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("login", username);
+        variables.put("isFork", fork);
+        variables.put("first", repositoryPageSize);
+        variables.put("refsFirst", branchPageSize);
+        variables.put("cursor", cursor);
+        return execute(REPOSITORIES_QUERY, variables)
+                .map(data -> data.path("repositoryOwner"))
+                .filter(owner -> !owner.isMissingNode() && !owner.isNull())
+                .switchIfEmpty(Mono.error(() -> new UserNotFoundException("User not found: " + username)))
+                .map(owner -> owner.path("repositories"));
+    }
+
+    private Mono<RepositoryDetails> toRepositoryDetails(JsonNode repository) {
+        String name = repository.path("name").asText();
+        String owner = repository.path("owner").path("login").asText();
+        JsonNode refs = repository.path("refs");
+        List<BranchDetails> branches = toBranchDetails(refs);
+        if (!hasNextPage(refs)) {
+            return Mono.just(new RepositoryDetails(name, owner, branches));
+        }
+        return fetchRemainingBranches(owner, name, endCursor(refs))
+                .collectList()
+                .map(remaining -> {
+                    List<BranchDetails> all = new ArrayList<>(branches);
+                    all.addAll(remaining);
+                    return new RepositoryDetails(name, owner, all);
+                });
+    }
+
+    private Flux<BranchDetails> fetchRemainingBranches(String owner, String name, String cursor) {
+        return fetchBranchPage(owner, name, cursor)
+                .expand(refs -> hasNextPage(refs) ? fetchBranchPage(owner, name, endCursor(refs)) : Mono.empty())
+                .concatMapIterable(this::toBranchDetails);
+    }
+
+    private Mono<JsonNode> fetchBranchPage(String owner, String name, String cursor) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("owner", owner);
+        variables.put("name", name);
+        variables.put("refsFirst", branchPageSize);
+        variables.put("cursor", cursor);
+        return execute(BRANCHES_QUERY, variables)
+                .map(data -> data.path("repository").path("refs"));
+    }
+
+    private Mono<JsonNode> execute(String query, Map<String, Object> variables) {
+        return concurrencyGovernor.run(observerWebClient.post()
+                        .uri("/graphql")
+                        .bodyValue(Map.of("query", query, "variables", variables))
+                        .retrieve()
+                        .bodyToMono(JsonNode.class))
+                .flatMap(response -> {
+                    JsonNode errors = response.path("errors");
+                    if (errors.isArray() && !errors.isEmpty() && !response.hasNonNull("data")) {
+                        return Mono.error(new IllegalStateException("GitHub GraphQL error: "
+                                + errors.get(0).path("message").asText()));
+                    }
+                    if (errors.isArray() && !errors.isEmpty()) {
+                        log.debug("GitHub GraphQL returned partial data: {}", errors);
+                    }
+                    return Mono.just(response.path("data"));
+                });
+    }
+
+    private List<BranchDetails> toBranchDetails(JsonNode refs) {
+        List<BranchDetails> branches = new ArrayList<>();
+        for (JsonNode ref : refs.path("nodes")) {
+            branches.add(new BranchDetails(ref.path("name").asText(), ref.path("target").path("oid").asText()));
+        }
+        return branches;
+    }
+
+    private static boolean hasNextPage(JsonNode connection) {
+        return connection.path("pageInfo").path("hasNextPage").asBoolean(false);
+    }
+
+    private static String endCursor(JsonNode connection) {
+        return connection.path("pageInfo").path("endCursor").asText(null);
+    }
+}
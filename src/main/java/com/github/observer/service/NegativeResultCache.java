@@ -0,0 +1,83 @@
+package com.github.observer.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Short-lived, size-bounded record of lookups that produced nothing: usernames GitHub answered with a
+ * 404 and users without any matching repositories. Other client errors (401, 403, 422) say nothing about
+ * the user and are never recorded. It is consulted before any upstream call so repeated
+ * misses (scrapers, typos) do not spend rate limit. Entries expire after their own TTL, which is kept
+ * much shorter than the result cache's so newly created accounts and repositories show up quickly.
+ */
+@Component
+public class NegativeResultCache {
+
+    private final Map<String, Long> entries;
+    private final Duration timeToLive;
+    private final Clock clock;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public NegativeResultCache(@Value("${observer.negative-cache.max-entries:10000}") int maxEntries,
+                               @Value("${observer.negative-cache.time-to-live:PT1M}") Duration timeToLive) {
+        this(maxEntries, timeToLive, Clock.systemUTC());
+    }
+
+    public NegativeResultCache(int maxEntries, Duration timeToLive, Clock clock) {
+        this.timeToLive = timeToLive;
+        this.clock = clock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Long> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public synchronized boolean contains(String key) {
+        Long expiresAt = entries.get(key);
+        if (expiresAt == null) {
+            return false;
+        }
+        if (expiresAt <= clock.millis()) {
+            entries.remove(key);
+            return false;
+        }
+        hits.incrementAndGet();
+        return true;
+    }
+
+    public synchronized void put(String key) {
+        entries.put(key, clock.millis() + timeToLive.toMillis());
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+}
@@ -1,65 +1,164 @@
 package com.github.observer.service;
 
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.exception.RateLimitExceededException;
 import com.github.observer.exception.UserNotFoundException;
-import com.github.observer.model.Branch;
-import com.github.observer.model.BranchDetails;
-import com.github.observer.model.Repository;
+import com.github.observer.metrics.PipelineMetrics;
 import com.github.observer.model.RepositoryDetails;
 import io.github.resilience4j.circuitbreaker.annotation.CircuitBreaker;
 import jakarta.validation.constraints.NotBlank;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatusCode;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 public class ObserverService {
 
-    private final WebClient observerWebClient;
+    private final RepositoryFetcher repositoryFetcher;
+    private final StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache;
+    private final NegativeResultCache negativeResultCache;
+    private final PipelineMetrics pipelineMetrics;
+    private final SingleFlight<String, List<RepositoryDetails>> repositoryRequests = new SingleFlight<>();
+    private final SingleFlight<String, List<RepositoryDetails>> refreshRequests = new SingleFlight<>();
 
-    public ObserverService(WebClient observerWebClient) {
-        this.observerWebClient = observerWebClient;
+    public ObserverService(RepositoryFetcher repositoryFetcher,
+                           StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache,
+                           NegativeResultCache negativeResultCache,
+                           PipelineMetrics pipelineMetrics) {
+        this.repositoryFetcher = repositoryFetcher;
+        this.repositoryDetailsCache = repositoryDetailsCache;
+        this.negativeResultCache = negativeResultCache;
+        this.pipelineMetrics = pipelineMetrics;
     }
 
     @CircuitBreaker(name = "github-api", fallbackMethod = "fallbackFindRepositories")
     public Mono<List<RepositoryDetails>> findRepositories(@NotBlank String username, boolean fork) {
+        String key = cacheKey(username, fork);
+        return Mono.defer(() -> {
+            if (negativeResultCache.contains(userKey(username))) {
+                return Mono.error(new UserNotFoundException("User not found: " + username));
+            }
+            if (negativeResultCache.contains(key)) {
+                return Mono.just(List.<RepositoryDetails>of());
+            }
+            // the cache's own background refresh runs this loader too, so flights are kept per priority
+            return repositoryDetailsCache.get(key, () -> Mono.deferContextual(context ->
+                            repositoryRequests.execute(flightKey(RateLimitScheduler.priorityOf(context), key),
+                                    () -> fetchRepositories(username, fork))))
+                    .defaultIfEmpty(List.of());
+        });
+    }
+
+    /**
+     * Reloads the result of a key ahead of its expiry, as background work, and emits the GitHub calls
+     * spent on it: none when the result is still fresh beyond {@code lead}, when the user or the result
+     * is negatively cached, or when a fetch for the key was already in flight. Refreshes coalesce among
+     * themselves only, so a request never joins one and inherits its background priority.
+     */
+    public Mono<Integer> refreshAhead(String username, boolean fork, Duration lead) {
+        String key = cacheKey(username, fork);
+        return Mono.defer(() -> {
+            if (negativeResultCache.contains(userKey(username)) || negativeResultCache.contains(key)
+                    || !repositoryDetailsCache.expiresWithin(key, lead)
+                    || repositoryRequests.isInFlight(flightKey(RateLimitScheduler.Priority.INTERACTIVE, key))) {
+                return Mono.just(0);
+            }
+            log.debug("Refreshing repositories for user: {} ahead of expiry", username);
+            AtomicInteger calls = new AtomicInteger();
+            return refreshRequests.execute(key, () -> fetchRepositories(username, fork))
+                    .doOnNext(repositories -> repositoryDetailsCache.put(key, repositories))
+                    .then(Mono.fromSupplier(calls::get))
+                    .contextWrite(PipelineMetrics.chargeUpstreamCallsTo(calls))
+                    .contextWrite(RateLimitScheduler.background());
+        });
+    }
 
+    /**
+     * Empty results are recorded in the negative cache and left out of the result cache, so they
+     * expire with the negative cache's shorter TTL.
+     */
+    private Mono<List<RepositoryDetails>> fetchRepositories(String username, boolean fork) {
         log.debug("Getting repositories for user: {}", username);
-        return observerWebClient.get()
-                .uri("/users/{username}/repos", username)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError, clientResponse ->
-                        Mono.error(new UserNotFoundException("User not found: " + username)))
-                .bodyToFlux(Repository.class)
-                .filter(repository -> repository.isFork() == fork)
-                .flatMap(this::convertToRepositoryDetails)
+        return pipelineMetrics.record(repositoryFetcher.fetchRepositories(username, fork))
                 .doOnComplete(() -> log.info("Finished getting repositories for user: {}", username))
-                .collectList();
+                .doOnError(UserNotFoundException.class, e -> negativeResultCache.put(userKey(username)))
+                .collectList()
+                .doOnNext(repositories -> {
+                    if (repositories.isEmpty()) {
+                        negativeResultCache.put(cacheKey(username, fork));
+                    }
+                })
+                .filter(repositories -> !repositories.isEmpty());
+    }
+
+    @CircuitBreaker(name = "github-api", fallbackMethod = "fallbackStreamRepositories")
+    public Flux<RepositoryDetails> streamRepositories(@NotBlank String username, boolean fork) {
+        String key = cacheKey(username, fork);
+        return Flux.defer(() -> {
+            if (negativeResultCache.contains(userKey(username))) {
+                return Flux.error(new UserNotFoundException("User not found: " + username));
+            }
+            if (negativeResultCache.contains(key)) {
+                return Flux.empty();
+            }
+            log.debug("Streaming repositories for user: {}", username);
+            return pipelineMetrics.record(repositoryFetcher.fetchRepositories(username, fork))
+                    .doOnError(UserNotFoundException.class, e -> negativeResultCache.put(userKey(username)))
+                    .switchIfEmpty(Flux.defer(() -> {
+                        negativeResultCache.put(key);
+                        return Flux.empty();
+                    }))
+                    .doOnComplete(() -> log.info("Finished streaming repositories for user: {}", username));
+        });
     }
 
     public Mono<List<RepositoryDetails>> fallbackFindRepositories(String username, boolean fork, Throwable t) {
+        List<RepositoryDetails> cached = repositoryDetailsCache.getIfPresent(cacheKey(username, fork));
+        if (cached != null) {
+            log.warn("Serving cached repositories for user: {} after error: {}", username, t.getMessage());
+            return Mono.just(cached);
+        }
         log.error("Error getting repositories for user: {}, error: {}", username, t.getMessage());
         throw new UserNotFoundException("User not found: " + username);
     }
 
-    private Flux<RepositoryDetails> convertToRepositoryDetails(Repository repository) {
-        return getBranches(repository.getOwner().getLogin() + "/" + repository.getName())
-                .collectList()
-                .map(branches -> new RepositoryDetails(repository.getName(),
-                        repository.getOwner().getLogin(), branches))
-                .flux();
+    public Mono<List<RepositoryDetails>> fallbackFindRepositories(String username, boolean fork,
+                                                                  RateLimitExceededException e) {
+        log.warn("Rate limit exhausted while getting repositories for user: {}", username);
+        return Mono.error(e);
+    }
+
+    public Flux<RepositoryDetails> fallbackStreamRepositories(String username, boolean fork, Throwable t) {
+        log.error("Error streaming repositories for user: {}, error: {}", username, t.getMessage());
+        throw new UserNotFoundException("User not found: " + username);
+    }
+
+    public Flux<RepositoryDetails> fallbackStreamRepositories(String username, boolean fork,
+                                                              RateLimitExceededException e) {
+        log.warn("Rate limit exhausted while streaming repositories for user: {}", username);
+        return Flux.error(e);
+    }
+
+    private static String flightKey(RateLimitScheduler.Priority priority, String key) {
+        return priority + ":" + key;
+    }
+
+    private static String cacheKey(String username, boolean fork) {
+        return userKey(username) + ":" + fork;
     }
 
-    public Flux<BranchDetails> getBranches(String repositoryFullName) {
-        return observerWebClient.get()
-                .uri("/repos/" + repositoryFullName + "/branches")
-                .retrieve()
-                .bodyToFlux(Branch.class)
-                .map(branch -> new BranchDetails(branch.getName(), branch.getCommit().getSha()));
+    /**
+     * GitHub logins are case-insensitive, so every spelling of one shares its cache entries and fetches,
+     * as in {@link RepositoryBatchService}.
+     */
+    public static String userKey(String username) {
+        return username.toLowerCase(Locale.ROOT);
     }
 }
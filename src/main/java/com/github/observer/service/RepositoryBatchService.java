@@ -0,0 +1,86 @@
+package com.github.observer.service;
+
+import com.github.observer.exception.RateLimitExceededException;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.model.BatchResult;
+import com.github.observer.model.RepositoryQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Answers many repository queries in one call. Queries are deduplicated (GitHub logins are case
+ * insensitive) and run through {@link ObserverService#findRepositories} at most {@code concurrency} at a
+ * time, so one batch cannot take more upstream permits than a few single requests would, while cached
+ * users are answered immediately. Results stream back in completion order, each tagged with its query,
+ * and a failing user becomes an error result instead of failing the batch.
+ */
+@Slf4j
+@Service
+public class RepositoryBatchService {
+
+    private final ObserverService observerService;
+    private final int maxQueries;
+    private final int concurrency;
+
+    public RepositoryBatchService(ObserverService observerService,
+                                  @Value("${observer.batch.max-queries:100}") int maxQueries,
+                                  @Value("${observer.batch.concurrency:4}") int concurrency) {
+        this.observerService = observerService;
+        this.maxQueries = maxQueries;
+        this.concurrency = concurrency;
+    }
+
+    public Flux<BatchResult> findRepositories(List<RepositoryQuery> queries) {
+        return Flux.defer(() -> {
+            Collection<RepositoryQuery> distinct = distinct(queries);
+            if (distinct.size() > maxQueries) {
+                return Flux.error(new IllegalArgumentException(
+                        "A batch may query at most " + maxQueries + " users, got " + distinct.size()));
+            }
+            log.debug("Batch of {} queries, {} distinct", queries.size(), distinct.size());
+            return Flux.fromIterable(distinct).flatMap(this::find, concurrency);
+        });
+    }
+
+    private Mono<BatchResult> find(RepositoryQuery query) {
+        if (query.getUsername() == null || query.getUsername().isBlank()) {
+            return Mono.just(BatchResult.failed(query, HttpStatus.BAD_REQUEST.value(), "Username must not be blank"));
+        }
+        return observerService.findRepositories(query.getUsername(), query.isFork())
+                .map(repositories -> BatchResult.found(query, repositories))
+                .defaultIfEmpty(BatchResult.found(query, List.of()))
+                .onErrorResume(e -> Mono.just(BatchResult.failed(query, statusOf(e).value(), e.getMessage())));
+    }
+
+    private static Collection<RepositoryQuery> distinct(List<RepositoryQuery> queries) {
+        Map<String, RepositoryQuery> distinct = new LinkedHashMap<>();
+        for (RepositoryQuery query : queries) {
+            String username = query.getUsername() == null ? "" : query.getUsername().toLowerCase(Locale.ROOT);
+            distinct.putIfAbsent(username + ":" + query.isFork(), query);
+        }
+        return distinct.values();
+    }
+
+    /**
+     * The status {@code GlobalExceptionHandler} gives the same error on the single-user endpoint.
+     */
+    private static HttpStatus statusOf(Throwable error) {
+        if (error instanceof UserNotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (error instanceof RateLimitExceededException) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+        return error instanceof RuntimeException ? HttpStatus.BAD_REQUEST : HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
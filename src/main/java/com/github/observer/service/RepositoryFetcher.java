@@ -0,0 +1,13 @@
+package com.github.observer.service;
+
+import com.github.observer.model.RepositoryDetails;
+import reactor.core.publisher.Flux;
+
+/**
+ * Upstream engine used by {@link ObserverService} to assemble repository details. The engine is
+ * selected with the {@code observer.fetcher} property.
+ */
+public interface RepositoryFetcher {
+
+    Flux<RepositoryDetails> fetchRepositories(String username, boolean fork);
+}
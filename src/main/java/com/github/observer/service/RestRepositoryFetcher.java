@@ -0,0 +1,80 @@
+package com.github.observer.service;
+
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.model.Branch;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.Repository;
+import com.github.observer.model.RepositoryDetails;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Fetches repositories through the GitHub REST API: one paginated listing of the user's repositories
+ * followed by one paginated branch listing per repository that changed since its branches were last
+ * fetched, as tracked by the {@link BranchCache}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "observer.fetcher", havingValue = "rest", matchIfMissing = true)
+public class RestRepositoryFetcher implements RepositoryFetcher {
+
+    private final GithubPaginator githubPaginator;
+    private final UpstreamConcurrencyGovernor concurrencyGovernor;
+    private final BranchCache branchCache;
+    private final SingleFlight<String, List<BranchDetails>> branchRequests = new SingleFlight<>();
+
+    public RestRepositoryFetcher(GithubPaginator githubPaginator, UpstreamConcurrencyGovernor concurrencyGovernor) {
+        this(githubPaginator, concurrencyGovernor, new BranchCache(0));
+    }
+
+    @Autowired
+    public RestRepositoryFetcher(GithubPaginator githubPaginator, UpstreamConcurrencyGovernor concurrencyGovernor,
+                                 BranchCache branchCache) {
+        this.githubPaginator = githubPaginator;
+        this.concurrencyGovernor = concurrencyGovernor;
+        this.branchCache = branchCache;
+    }
+
+    @Override
+    public Flux<RepositoryDetails> fetchRepositories(String username, boolean fork) {
+        return githubPaginator.fetchAll("/users/{username}/repos", Repository.class,
+                        status -> status.isSameCodeAs(HttpStatus.NOT_FOUND), clientResponse ->
+                                Mono.error(new UserNotFoundException("User not found: " + username)), username)
+                .filter(repository -> repository.isFork() == fork)
+                .flatMap(this::convertToRepositoryDetails, concurrencyGovernor.getPerRequestConcurrency());
+    }
+
+    private Mono<RepositoryDetails> convertToRepositoryDetails(Repository repository) {
+        List<BranchDetails> unchanged = branchCache.get(repository);
+        if (unchanged != null) {
+            return Mono.just(new RepositoryDetails(repository.getName(), repository.getOwner().getLogin(), unchanged));
+        }
+        return getBranches(repository.getOwner().getLogin(), repository.getName())
+                .collectList()
+                .doOnNext(branches -> branchCache.put(repository, branches))
+                .map(branches -> new RepositoryDetails(repository.getName(),
+                        repository.getOwner().getLogin(), branches));
+    }
+
+    /**
+     * Concurrent listings of one repository share a single fetch, but only among callers of the same
+     * priority, so a request never waits on background work that may be shed under the rate limit.
+     */
+    public Flux<BranchDetails> getBranches(String owner, String repositoryName) {
+        return Mono.deferContextual(context -> branchRequests.execute(
+                        RateLimitScheduler.priorityOf(context) + ":" + owner + "/" + repositoryName, () ->
+                                githubPaginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class,
+                                                owner, repositoryName)
+                                        .map(branch -> new BranchDetails(branch.getName(), branch.getCommit().getSha()))
+                                        .collectList()))
+                .flatMapIterable(branches -> branches);
+    }
+}
@@ -0,0 +1,39 @@
+package com.github.observer.service;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent calls for the same key into one upstream subscription. The first caller
+ * starts the work, callers arriving while it is in flight share its result, and the key is
+ * released when the shared {@link Mono} signals, before its result reaches any caller, so a call
+ * made in reaction to that result already starts fresh.
+ */
+public class SingleFlight<K, V> {
+
+    private final Map<K, Mono<V>> inFlight = new ConcurrentHashMap<>();
+
+    public Mono<V> execute(K key, Supplier<Mono<V>> work) {
+        return Mono.defer(() -> {
+            AtomicReference<Mono<V>> shared = new AtomicReference<>();
+            return inFlight.computeIfAbsent(key, k -> {
+                shared.set(work.get()
+                        .doOnEach(signal -> inFlight.remove(k, shared.get()))
+                        .cache());
+                return shared.get();
+            });
+        });
+    }
+
+    public boolean isInFlight(K key) {
+        return inFlight.containsKey(key);
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,204 @@
+package com.github.observer.service;
+
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.snapshot.SnapshotView;
+import lombok.extern.slf4j.Slf4j;
+import reactor.core.publisher.Mono;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Size-bounded result cache with stale-while-revalidate semantics. Entries younger than the fresh
+ * TTL are served as they are. Entries past it but still within the stale TTL are served immediately
+ * while a single background refresh replaces them. Older entries are reloaded in the caller's path.
+ * Every stored value is also written to an optional {@link SnapshotView}, which a miss consults before
+ * loading, so entries kept by a previous process are served with the age they had there.
+ */
+@Slf4j
+public class StaleWhileRevalidateCache<K, V> {
+
+    private final Duration freshFor;
+    private final Duration staleFor;
+    private final Clock clock;
+    private final SnapshotView<V> snapshot;
+    private final Map<K, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong restores = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong refreshFailures = new AtomicLong();
+
+    public StaleWhileRevalidateCache(int maxEntries, Duration freshFor, Duration staleFor) {
+        this(maxEntries, freshFor, staleFor, Clock.systemUTC());
+    }
+
+    public StaleWhileRevalidateCache(int maxEntries, Duration freshFor, Duration staleFor, Clock clock) {
+        this(maxEntries, freshFor, staleFor, clock, SnapshotView.none());
+    }
+
+    public StaleWhileRevalidateCache(int maxEntries, Duration freshFor, Duration staleFor, Clock clock,
+                                     SnapshotView<V> snapshot) {
+        this.freshFor = freshFor;
+        this.staleFor = staleFor;
+        this.clock = clock;
+        this.snapshot = snapshot;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                boolean evict = size() > maxEntries;
+                if (evict) {
+                    evictions.incrementAndGet();
+                }
+                return evict;
+            }
+        };
+    }
+
+    public Mono<V> get(K key, Supplier<Mono<V>> loader) {
+        return Mono.defer(() -> {
+            long now = clock.millis();
+            Entry<V> entry = lookupOrRestore(key, now);
+            if (entry == null) {
+                misses.incrementAndGet();
+                return loader.get().doOnNext(value -> put(key, value));
+            }
+            if (now - entry.storedAt() <= freshFor.toMillis()) {
+                hits.incrementAndGet();
+                return Mono.just(entry.value());
+            }
+            staleHits.incrementAndGet();
+            if (startRefresh(key, entry)) {
+                log.debug("Refreshing stale cache entry: {}", key);
+                loader.get()
+                        .contextWrite(RateLimitScheduler.background())
+                        .subscribe(value -> put(key, value), error -> {
+                            refreshFailures.incrementAndGet();
+                            endRefresh(key, entry);
+                            log.warn("Background refresh of {} failed: {}", key, error.getMessage());
+                        }, () -> endRefresh(key, entry));
+            }
+            return Mono.just(entry.value());
+        });
+    }
+
+    /**
+     * Returns the cached value while it is fresh or stale, without loading or refreshing it.
+     */
+    public V getIfPresent(K key) {
+        Entry<V> entry = lookupOrRestore(key, clock.millis());
+        return entry == null ? null : entry.value();
+    }
+
+    /**
+     * Returns whether the key has no entry or its entry stops being fresh within {@code lead}, so a
+     * refresh now would keep it from ever being served stale or loaded in a caller's path.
+     */
+    public boolean expiresWithin(K key, Duration lead) {
+        long now = clock.millis();
+        Entry<V> entry = lookupOrRestore(key, now);
+        return entry == null || entry.storedAt() + freshFor.toMillis() - now <= lead.toMillis();
+    }
+
+    public void put(K key, V value) {
+        long now = clock.millis();
+        synchronized (this) {
+            entries.put(key, new Entry<>(value, now, false));
+        }
+        snapshot.save(key.toString(), value, now);
+    }
+
+    public void invalidate(K key) {
+        synchronized (this) {
+            entries.remove(key);
+        }
+        snapshot.remove(key.toString());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getRestores() {
+        return restores.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getRefreshFailures() {
+        return refreshFailures.get();
+    }
+
+    private Entry<V> lookupOrRestore(K key, long now) {
+        Entry<V> entry = lookup(key, now);
+        return entry != null ? entry : restore(key, now);
+    }
+
+    /**
+     * Reads the entry back from the snapshot outside the lock, keeping the age it was stored with.
+     */
+    private Entry<V> restore(K key, long now) {
+        SnapshotView.Stored<V> stored = snapshot.load(key.toString());
+        if (stored == null || now - stored.storedAt() > freshFor.toMillis() + staleFor.toMillis()) {
+            return null;
+        }
+        restores.incrementAndGet();
+        synchronized (this) {
+            Entry<V> current = entries.get(key);
+            if (current != null) {
+                return current;
+            }
+            Entry<V> restored = new Entry<>(stored.value(), stored.storedAt(), false);
+            entries.put(key, restored);
+            return restored;
+        }
+    }
+
+    private synchronized Entry<V> lookup(K key, long now) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && now - entry.storedAt() > freshFor.toMillis() + staleFor.toMillis()) {
+            entries.remove(key);
+            evictions.incrementAndGet();
+            return null;
+        }
+        return entry;
+    }
+
+    private synchronized boolean startRefresh(K key, Entry<V> entry) {
+        if (entry.refreshing() || entries.get(key) != entry) {
+            return false;
+        }
+        entries.put(key, new Entry<>(entry.value(), entry.storedAt(), true));
+        return true;
+    }
+
+    private synchronized void endRefresh(K key, Entry<V> stale) {
+        Entry<V> current = entries.get(key);
+        if (current != null && current.refreshing() && current.storedAt() == stale.storedAt()) {
+            entries.put(key, new Entry<>(current.value(), current.storedAt(), false));
+        }
+    }
+
+    private record Entry<V>(V value, long storedAt, boolean refreshing) {
+    }
+}
@@ -0,0 +1,156 @@
+package com.github.observer.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Process-wide cap on concurrent GitHub calls. Every upstream call takes a permit from a shared pool
+ * and waits in FIFO order when none is left, so the total parallelism across all in-flight user
+ * requests stays bounded no matter how many of them fan out at once. The per-request concurrency
+ * limits how many of those permits a single user request competes for.
+ */
+@Component
+public class UpstreamConcurrencyGovernor {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int DONE = 2;
+
+    private final int maxConcurrency;
+    private final int perRequestConcurrency;
+    private final Queue<Permit> waiters = new ArrayDeque<>();
+    private int available;
+
+    private final AtomicLong acquisitions = new AtomicLong();
+    private final AtomicLong queuedAcquisitions = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+
+    public UpstreamConcurrencyGovernor(@Value("${observer.upstream.max-concurrency:32}") int maxConcurrency,
+                                       @Value("${observer.upstream.per-request-concurrency:8}") int perRequestConcurrency) {
+        this.maxConcurrency = maxConcurrency;
+        this.perRequestConcurrency = perRequestConcurrency;
+        this.available = maxConcurrency;
+    }
+
+    public <T> Mono<T> run(Mono<T> call) {
+        return Mono.defer(() -> {
+            Permit permit = new Permit();
+            return acquire(permit)
+                    .then(call)
+                    .doFinally(signal -> permit.close());
+        });
+    }
+
+    /**
+     * Blocking counterpart of {@link #run(Mono)} for callers on virtual threads: waits for a permit on
+     * the calling thread and runs the call on it.
+     */
+    public <T> T call(Callable<T> call) throws Exception {
+        Permit permit = new Permit();
+        try {
+            acquire(permit).block();
+            return call.call();
+        } finally {
+            permit.close();
+        }
+    }
+
+    public int getPerRequestConcurrency() {
+        return perRequestConcurrency;
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public synchronized int getAvailablePermits() {
+        return available;
+    }
+
+    public synchronized int getQueueLength() {
+        return waiters.size();
+    }
+
+    public long getAcquisitions() {
+        return acquisitions.get();
+    }
+
+    public long getQueuedAcquisitions() {
+        return queuedAcquisitions.get();
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos.get();
+    }
+
+    private Mono<Void> acquire(Permit permit) {
+        return Mono.create(sink -> {
+            permit.sink = sink;
+            boolean granted;
+            synchronized (this) {
+                granted = available > 0;
+                if (granted) {
+                    available--;
+                } else {
+                    waiters.add(permit);
+                }
+            }
+            if (granted) {
+                permit.grant();
+            } else {
+                queuedAcquisitions.incrementAndGet();
+            }
+        });
+    }
+
+    private void release() {
+        while (true) {
+            Permit next;
+            synchronized (this) {
+                next = waiters.poll();
+                if (next == null) {
+                    available++;
+                    return;
+                }
+            }
+            if (next.grant()) {
+                return;
+            }
+        }
+    }
+
+    private class Permit {
+
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final long createdAt = System.nanoTime();
+        private MonoSink<Void> sink;
+
+        boolean grant() {
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+            acquisitions.incrementAndGet();
+            totalWaitNanos.addAndGet(System.nanoTime() - createdAt);
+            sink.success();
+            return true;
+        }
+
+        void close() {
+            if (state.compareAndSet(WAITING, DONE)) {
+                synchronized (UpstreamConcurrencyGovernor.this) {
+                    waiters.remove(this);
+                }
+            } else if (state.compareAndSet(GRANTED, DONE)) {
+                release();
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.observer.snapshot;
+
+import com.github.observer.model.BranchDetails;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Encodes a branch listing as a count followed by each branch's name and head commit.
+ */
+public class BranchDetailsCodec implements SnapshotCodec<List<BranchDetails>> {
+
+    @Override
+    public void write(List<BranchDetails> branches, DataOutput out) throws IOException {
+        out.writeInt(branches.size());
+        for (BranchDetails branch : branches) {
+            writeNullable(branch.getName(), out);
+            writeNullable(branch.getLastCommitSha(), out);
+        }
+    }
+
+    @Override
+    public List<BranchDetails> read(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<BranchDetails> branches = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            branches.add(new BranchDetails(readNullable(in), readNullable(in)));
+        }
+        return branches;
+    }
+
+    static void writeNullable(String value, DataOutput out) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    static String readNullable(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,43 @@
+package com.github.observer.snapshot;
+
+import com.github.observer.model.RepositoryDetails;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.github.observer.snapshot.BranchDetailsCodec.readNullable;
+import static com.github.observer.snapshot.BranchDetailsCodec.writeNullable;
+
+/**
+ * Encodes assembled results as counts and length-prefixed UTF-8 strings, a fraction of their JSON size
+ * and read back without a parser.
+ */
+public class RepositoryDetailsCodec implements SnapshotCodec<List<RepositoryDetails>> {
+
+    private final BranchDetailsCodec branchCodec = new BranchDetailsCodec();
+
+    @Override
+    public void write(List<RepositoryDetails> repositories, DataOutput out) throws IOException {
+        out.writeInt(repositories.size());
+        for (RepositoryDetails repository : repositories) {
+            writeNullable(repository.getName(), out);
+            writeNullable(repository.getOwner(), out);
+            branchCodec.write(repository.getBranches() == null ? List.of() : repository.getBranches(), out);
+        }
+    }
+
+    @Override
+    public List<RepositoryDetails> read(DataInput in) throws IOException {
+        int count = in.readInt();
+        List<RepositoryDetails> repositories = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            String name = readNullable(in);
+            String owner = readNullable(in);
+            repositories.add(new RepositoryDetails(name, owner, branchCodec.read(in)));
+        }
+        return repositories;
+    }
+}
@@ -0,0 +1,15 @@
+package com.github.observer.snapshot;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Binary encoding of one kind of value kept in the {@link SnapshotStore}.
+ */
+public interface SnapshotCodec<V> {
+
+    void write(V value, DataOutput out) throws IOException;
+
+    V read(DataInput in) throws IOException;
+}
@@ -0,0 +1,429 @@
+package com.github.observer.snapshot;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32C;
+
+/**
+ * Memory-mapped, append-only file of cache entries that outlives the process, so a restarted task or a
+ * new instance starts with the results and GitHub validators of the previous one instead of an empty
+ * cache. Disabled unless {@code observer.snapshot.path} is set.
+ * <p>
+ * After an 8-byte file header, each record is {@code [length][crc32c][storedAt][removed][key length][key]
+ * [payload]}. The length is written last, so a record cut short by a crash reads as the end of the log.
+ * Opening the file scans only record headers to index the latest record per key; payloads are copied
+ * out and checked when first read. Appends are forced to disk every {@value #FLUSH_BYTES} bytes and on
+ * close. A full file is compacted into a new one holding the live records, newest first, up to three
+ * quarters of the capacity; older ones are dropped.
+ * <p>
+ * Writes through a {@link SnapshotView} are handed to a single writer thread, since the caches save from
+ * event-loop threads and an append may force the file or compact it. Appends are serialized on their own
+ * lock; the store's monitor only guards the mapping and the index, and is never held while forcing or
+ * compacting, so reads go on meanwhile. A load right after a save may still see the previous entry.
+ */
+@Slf4j
+@Component
+public class SnapshotStore implements AutoCloseable {
+
+    private static final int MAGIC = 0x4F425331;
+    private static final int FILE_HEADER_BYTES = 8;
+    private static final int RECORD_HEADER_BYTES = 19;
+    private static final int FLUSH_BYTES = 1 << 20;
+
+    private final Path path;
+    private final int capacity;
+    private final Map<String, Slot> index = new HashMap<>();
+    private final Object writeLock = new Object();
+    private final ExecutorService writer;
+    private MappedByteBuffer buffer;
+    private int position;
+    private int flushedTo;
+
+    private final AtomicLong compactions = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong corrupted = new AtomicLong();
+
+    @Autowired
+    public SnapshotStore(@Value("${observer.snapshot.path:}") String path,
+                         @Value("${observer.snapshot.max-size:256MB}") DataSize maxSize) {
+        this(path.isBlank() ? null : Path.of(path), capacityOf(maxSize));
+    }
+
+    public SnapshotStore(Path path, int capacity) {
+        this.path = path;
+        this.capacity = capacity;
+        this.writer = path == null ? null : Executors.newSingleThreadExecutor(task -> {
+            Thread thread = new Thread(task, "snapshot-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (path != null) {
+            open();
+        }
+    }
+
+    public static SnapshotStore disabled() {
+        return new SnapshotStore(null, 0);
+    }
+
+    public <V> SnapshotView<V> view(String prefix, SnapshotCodec<V> codec) {
+        return new SnapshotView<>() {
+            @Override
+            public Stored<V> load(String key) {
+                Entry entry = read(prefix + key);
+                if (entry == null) {
+                    return null;
+                }
+                try {
+                    return new Stored<>(codec.read(new DataInputStream(new ByteArrayInputStream(entry.payload()))),
+                            entry.storedAt());
+                } catch (IOException e) {
+                    log.warn("Could not decode snapshot entry {}: {}", prefix + key, e.getMessage());
+                    return null;
+                }
+            }
+
+            @Override
+            public void save(String key, V value, long storedAt) {
+                if (!isEnabled()) {
+                    return;
+                }
+                ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+                try {
+                    codec.write(value, new DataOutputStream(bytes));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                inBackground(() -> write(prefix + key, storedAt, bytes.toByteArray()));
+            }
+
+            @Override
+            public void remove(String key) {
+                inBackground(() -> SnapshotStore.this.remove(prefix + key));
+            }
+        };
+    }
+
+    /**
+     * Returns the latest entry for the key, or {@code null} when there is none or it fails its checksum.
+     */
+    public Entry read(String key) {
+        Slot slot;
+        byte[] record;
+        synchronized (this) {
+            slot = index.get(key);
+            if (slot == null || buffer == null) {
+                return null;
+            }
+            record = new byte[slot.length()];
+            buffer.get(slot.position(), record);
+        }
+        ByteBuffer view = ByteBuffer.wrap(record);
+        CRC32C crc = new CRC32C();
+        crc.update(record, 8, record.length - 8);
+        if (view.getInt(4) != (int) crc.getValue()) {
+            corrupted.incrementAndGet();
+            log.warn("Dropping corrupt snapshot entry {}", key);
+            synchronized (this) {
+                index.remove(key, slot);
+            }
+            return null;
+        }
+        int payloadStart = RECORD_HEADER_BYTES + Short.toUnsignedInt(view.getShort(17));
+        byte[] payload = new byte[record.length - payloadStart];
+        System.arraycopy(record, payloadStart, payload, 0, payload.length);
+        return new Entry(view.getLong(8), payload);
+    }
+
+    /**
+     * Appends the entry on the calling thread, which may have to force or compact the file first.
+     */
+    public void write(String key, long storedAt, byte[] payload) {
+        append(key, storedAt, false, payload);
+    }
+
+    public void remove(String key) {
+        synchronized (this) {
+            if (!index.containsKey(key)) {
+                return;
+            }
+        }
+        append(key, 0, true, new byte[0]);
+    }
+
+    public synchronized boolean isEnabled() {
+        return buffer != null;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    public synchronized int getUsedBytes() {
+        return position;
+    }
+
+    public long getCompactions() {
+        return compactions.get();
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getCorrupted() {
+        return corrupted.get();
+    }
+
+    /**
+     * Waits for the background writes handed over so far, then forces what is left to disk.
+     */
+    @Override
+    public void close() {
+        if (writer != null) {
+            writer.shutdown();
+            try {
+                if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+                    log.warn("Snapshot {} closed with writes still pending", path);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        synchronized (writeLock) {
+            flush();
+            synchronized (this) {
+                buffer = null;
+            }
+        }
+    }
+
+    private void inBackground(Runnable write) {
+        if (writer == null) {
+            return;
+        }
+        try {
+            writer.execute(write);
+        } catch (RejectedExecutionException e) {
+            log.debug("Snapshot {} is closed, not writing", path);
+        }
+    }
+
+    /**
+     * Runs under the write lock; only the copy into the mapping and the index update hold the monitor.
+     */
+    private void append(String key, long storedAt, boolean removed, byte[] payload) {
+        synchronized (writeLock) {
+            if (!isEnabled()) {
+                return;
+            }
+            byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+            int length = RECORD_HEADER_BYTES + keyBytes.length + payload.length;
+            if (keyBytes.length > 0xFFFF || length > capacity / 4) {
+                dropped.incrementAndGet();
+                log.debug("Not keeping snapshot entry {} of {} bytes", key, length);
+                boolean indexed;
+                synchronized (this) {
+                    indexed = index.containsKey(key);
+                }
+                if (indexed) {
+                    // the older value must not come back on the next start
+                    append(key, 0, true, new byte[0]);
+                }
+                return;
+            }
+            if (position + length > capacity) {
+                compact();
+            }
+            synchronized (this) {
+                if (buffer == null || position + length > capacity) {
+                    dropped.incrementAndGet();
+                    return;
+                }
+                int at = position;
+                buffer.putLong(at + 8, storedAt);
+                buffer.put(at + 16, (byte) (removed ? 1 : 0));
+                buffer.putShort(at + 17, (short) keyBytes.length);
+                buffer.put(at + RECORD_HEADER_BYTES, keyBytes);
+                buffer.put(at + RECORD_HEADER_BYTES + keyBytes.length, payload);
+                CRC32C crc = new CRC32C();
+                crc.update(buffer.slice(at + 8, length - 8));
+                buffer.putInt(at + 4, (int) crc.getValue());
+                if (at + length + 4 <= capacity) {
+                    // ends the log here, past anything left of a record torn by a crash
+                    buffer.putInt(at + length, 0);
+                }
+                buffer.putInt(at, length);
+                position += length;
+
+                if (removed) {
+                    index.remove(key);
+                } else {
+                    index.put(key, new Slot(at, length, storedAt));
+                }
+            }
+            if (position - flushedTo >= FLUSH_BYTES) {
+                flush();
+            }
+        }
+    }
+
+    private void open() {
+        try {
+            boolean existing = Files.exists(path) && Files.size(path) > 0;
+            buffer = map(path);
+            if (existing && buffer.getInt(0) == MAGIC) {
+                position = scan();
+            } else {
+                if (existing) {
+                    log.warn("{} is not a snapshot file, replacing it", path);
+                    Files.delete(path);
+                    buffer = map(path);
+                }
+                buffer.putInt(0, MAGIC);
+                position = FILE_HEADER_BYTES;
+            }
+            flushedTo = position;
+            log.info("Opened snapshot {} with {} entries in {} bytes", path, index.size(), position);
+        } catch (IOException e) {
+            log.warn("Could not open snapshot {}, running without it: {}", path, e.getMessage());
+            buffer = null;
+        }
+    }
+
+    /**
+     * Indexes the records from their headers and returns the end of the log.
+     */
+    private int scan() {
+        int at = FILE_HEADER_BYTES;
+        while (at + RECORD_HEADER_BYTES <= capacity) {
+            int length = buffer.getInt(at);
+            int keyLength = length <= 0 ? 0 : Short.toUnsignedInt(buffer.getShort(at + 17));
+            if (length < RECORD_HEADER_BYTES || length > capacity - at || RECORD_HEADER_BYTES + keyLength > length) {
+                break;
+            }
+            byte[] keyBytes = new byte[keyLength];
+            buffer.get(at + RECORD_HEADER_BYTES, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            if (buffer.get(at + 16) != 0) {
+                index.remove(key);
+            } else {
+                index.put(key, new Slot(at, length, buffer.getLong(at + 8)));
+            }
+            at += length;
+        }
+        return at;
+    }
+
+    /**
+     * Runs under the write lock. Copies the live records out of the current mapping, which only the
+     * writer changes, and takes the monitor just to swap in the new mapping and index.
+     */
+    private void compact() {
+        Path compactedPath = path.resolveSibling(path.getFileName() + ".compact");
+        try {
+            Files.deleteIfExists(compactedPath);
+            MappedByteBuffer compacted = map(compactedPath);
+            compacted.putInt(0, MAGIC);
+            List<Map.Entry<String, Slot>> live;
+            MappedByteBuffer source;
+            synchronized (this) {
+                live = new ArrayList<>(index.entrySet());
+                source = buffer;
+            }
+            live.sort(Comparator.comparingLong((Map.Entry<String, Slot> entry) -> entry.getValue().storedAt()).reversed());
+            Map<String, Slot> kept = new HashMap<>();
+            int limit = capacity / 4 * 3;
+            int at = FILE_HEADER_BYTES;
+            for (Map.Entry<String, Slot> entry : live) {
+                Slot slot = entry.getValue();
+                if (at + slot.length() > limit) {
+                    dropped.incrementAndGet();
+                    continue;
+                }
+                compacted.put(at, source, slot.position(), slot.length());
+                kept.put(entry.getKey(), new Slot(at, slot.length(), slot.storedAt()));
+                at += slot.length();
+            }
+            compacted.force();
+            Files.move(compactedPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            // the old mapping is released once collected; readers still holding it see consistent data
+            synchronized (this) {
+                buffer = compacted;
+                index.clear();
+                index.putAll(kept);
+                position = at;
+            }
+            flushedTo = at;
+            compactions.incrementAndGet();
+            log.info("Compacted snapshot {} to {} entries in {} bytes", path, kept.size(), at);
+        } catch (IOException e) {
+            log.warn("Could not compact snapshot {}: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Runs under the write lock, which keeps the mapping and the end of the log from changing.
+     */
+    private void flush() {
+        if (buffer != null && position > flushedTo) {
+            buffer.force(flushedTo, position - flushedTo);
+            flushedTo = position;
+        }
+    }
+
+    /**
+     * Maps the whole capacity, growing the file sparsely, and closes the channel: the mapping stays valid
+     * and the process keeps no descriptor open.
+     */
+    private MappedByteBuffer map(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    private static int capacityOf(DataSize maxSize) {
+        if (maxSize.toBytes() > Integer.MAX_VALUE || maxSize.toBytes() < 4096) {
+            throw new IllegalArgumentException("observer.snapshot.max-size must be between 4KB and 2GB, got " + maxSize);
+        }
+        return (int) maxSize.toBytes();
+    }
+
+    public record Entry(long storedAt, byte[] payload) {
+    }
+
+    private record Slot(int position, int length, long storedAt) {
+    }
+}
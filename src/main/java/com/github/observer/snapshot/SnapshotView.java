@@ -0,0 +1,40 @@
+package com.github.observer.snapshot;
+
+/**
+ * Typed access to the entries of one cache in the {@link SnapshotStore}, each remembered with the time it
+ * was stored so the cache can apply its own expiry to what it restores.
+ */
+public interface SnapshotView<V> {
+
+    /**
+     * Returns the entry, or {@code null} when there is none or it cannot be read back.
+     */
+    Stored<V> load(String key);
+
+    void save(String key, V value, long storedAt);
+
+    void remove(String key);
+
+    /**
+     * A view that keeps nothing, for caches used without a snapshot.
+     */
+    static <V> SnapshotView<V> none() {
+        return new SnapshotView<>() {
+            @Override
+            public Stored<V> load(String key) {
+                return null;
+            }
+
+            @Override
+            public void save(String key, V value, long storedAt) {
+            }
+
+            @Override
+            public void remove(String key) {
+            }
+        };
+    }
+
+    record Stored<V>(V value, long storedAt) {
+    }
+}
@@ -0,0 +1,163 @@
+package com.github.observer;
+
+import com.github.observer.client.AdaptiveTimeouts;
+import com.github.observer.model.Branch;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AdaptiveTimeoutsTest {
+
+    private static final String BRANCHES = "[{\"name\":\"main\",\"commit\":{\"sha\":\"abc123\"}}]";
+
+    @Test
+    public void testTimeoutFollowsTheEndpointsObservedLatency() {
+        AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(Duration.ofMillis(200), Duration.ofSeconds(5), 3,
+                false, 0);
+        try (GithubStubServer github = new GithubStubServer().withUser("user1", 2, 1)) {
+            WebClient webClient = WebClient.builder()
+                    .baseUrl(github.baseUrl())
+                    .filter(adaptiveTimeouts)
+                    .build();
+            assertThat(adaptiveTimeouts.timeout(AdaptiveTimeouts.REPOSITORIES)).isEqualTo(Duration.ofSeconds(5));
+
+            for (int i = 0; i < 200; i++) {
+                getRepositories(webClient).block();
+            }
+            assertThat(adaptiveTimeouts.timeout(AdaptiveTimeouts.REPOSITORIES)).isEqualTo(Duration.ofMillis(200));
+            assertThat(adaptiveTimeouts.timeout(AdaptiveTimeouts.BRANCHES)).isEqualTo(Duration.ofSeconds(5));
+
+            github.withLatency(Duration.ofSeconds(2), Duration.ZERO);
+            long start = System.nanoTime();
+            StepVerifier.create(getRepositories(webClient))
+                    .expectError(TimeoutException.class)
+                    .verify();
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+            assertThat(adaptiveTimeouts.getTimeouts()).isEqualTo(1);
+        }
+    }
+
+    @Test
+    public void testSlowBranchPageIsHedgedAfterItsP95() {
+        AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(Duration.ofSeconds(3), Duration.ofSeconds(5), 3,
+                true, 0.05);
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .filter(adaptiveTimeouts)
+                .exchangeFunction(request -> {
+                    ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(BRANCHES)
+                            .build();
+                    // the first call after warming up stalls, as on a slow edge node
+                    return calls.incrementAndGet() == 33
+                            ? Mono.delay(Duration.ofSeconds(2)).thenReturn(response)
+                            : Mono.just(response);
+                })
+                .build();
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(32, 8);
+        GithubPaginator paginator = new GithubPaginator(webClient, governor, 100, 4, adaptiveTimeouts);
+        for (int i = 0; i < 32; i++) {
+            paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class, "user1", "repo" + i).blockLast();
+        }
+        assertThat(adaptiveTimeouts.hedgeDelay(AdaptiveTimeouts.BRANCHES)).isLessThan(Duration.ofSeconds(1));
+
+        long start = System.nanoTime();
+        List<Branch> branches = paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class, "user1", "slow")
+                .collectList().block();
+
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+        assertThat(branches).extracting(Branch::getName).containsExactly("main");
+        assertThat(calls).hasValue(34);
+        assertThat(adaptiveTimeouts.getHedges()).isEqualTo(1);
+        assertThat(adaptiveTimeouts.getHedgeWins()).isEqualTo(1);
+        assertThat(adaptiveTimeouts.getTimeouts()).isZero();
+    }
+
+    @Test
+    public void testFailedHedgeLeavesTheSlowCallToAnswer() {
+        AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(Duration.ofSeconds(3), Duration.ofSeconds(5), 3,
+                true, 0.05);
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .filter(adaptiveTimeouts)
+                .exchangeFunction(request -> {
+                    int call = calls.incrementAndGet();
+                    if (call == 34) {
+                        // the hedge is shed at once, as by the rate-limit scheduler
+                        return Mono.error(new IllegalStateException("hedge shed"));
+                    }
+                    ClientResponse response = ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(BRANCHES)
+                            .build();
+                    return call == 33 ? Mono.delay(Duration.ofMillis(500)).thenReturn(response) : Mono.just(response);
+                })
+                .build();
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(32, 8);
+        GithubPaginator paginator = new GithubPaginator(webClient, governor, 100, 4, adaptiveTimeouts);
+        for (int i = 0; i < 32; i++) {
+            paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class, "user1", "repo" + i).blockLast();
+        }
+
+        List<Branch> branches = paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class, "user1", "slow")
+                .collectList().block();
+
+        assertThat(branches).extracting(Branch::getName).containsExactly("main");
+        assertThat(calls).hasValue(34);
+        assertThat(adaptiveTimeouts.getHedges()).isEqualTo(1);
+        assertThat(adaptiveTimeouts.getHedgeWins()).isZero();
+    }
+
+    @Test
+    public void testPageQueuedForAPermitIsNotHedged() {
+        AdaptiveTimeouts adaptiveTimeouts = new AdaptiveTimeouts(Duration.ofSeconds(3), Duration.ofSeconds(5), 3,
+                true, 0.05);
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .filter(adaptiveTimeouts)
+                .exchangeFunction(request -> {
+                    calls.incrementAndGet();
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(BRANCHES)
+                            .build());
+                })
+                .build();
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(1, 1);
+        GithubPaginator paginator = new GithubPaginator(webClient, governor, 100, 4, adaptiveTimeouts);
+        for (int i = 0; i < 32; i++) {
+            paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class, "user1", "repo" + i).blockLast();
+        }
+        assertThat(adaptiveTimeouts.hedgeDelay(AdaptiveTimeouts.BRANCHES)).isLessThan(Duration.ofMillis(100));
+
+        // another call holds the only permit far longer than the p95
+        Disposable busy = governor.run(Mono.delay(Duration.ofMillis(500))).subscribe();
+        List<Branch> branches = paginator.fetchAllHedged("/repos/{owner}/{repo}/branches", Branch.class,
+                "user1", "queued").collectList().block();
+        busy.dispose();
+
+        assertThat(branches).extracting(Branch::getName).containsExactly("main");
+        assertThat(calls).hasValue(33);
+        assertThat(adaptiveTimeouts.getHedges()).isZero();
+    }
+
+    private static Mono<String> getRepositories(WebClient webClient) {
+        return webClient.get().uri("/users/{username}/repos", "user1").retrieve().bodyToMono(String.class);
+    }
+}
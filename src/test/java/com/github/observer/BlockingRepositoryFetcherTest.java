@@ -0,0 +1,116 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.BlockingRepositoryFetcher;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BlockingRepositoryFetcherTest {
+
+    private GithubStubServer github;
+    private RateLimitScheduler rateLimitScheduler;
+    private RestRepositoryFetcher reactiveFetcher;
+    private BlockingRepositoryFetcher blockingFetcher;
+    private SimpleMeterRegistry meterRegistry;
+    private PipelineMetrics pipelineMetrics;
+
+    @BeforeEach
+    public void setUp() {
+        github = new GithubStubServer().withUser("pagedUser", 250, 120).withUser("user0", 40, 3);
+        rateLimitScheduler = new RateLimitScheduler(50, 500, Duration.ofSeconds(10));
+        GithubTokenPool githubTokenPool = new GithubTokenPool(List.of("token1", "token2"));
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        meterRegistry = new SimpleMeterRegistry();
+        pipelineMetrics = new PipelineMetrics(meterRegistry);
+
+        WebClient webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .filter(rateLimitScheduler)
+                .filter(githubTokenPool)
+                .filter(pipelineMetrics)
+                .build();
+        reactiveFetcher = new RestRepositoryFetcher(new GithubPaginator(webClient, concurrencyGovernor, 100, 4),
+                concurrencyGovernor);
+
+        RestClient restClient = RestClient.builder()
+                .baseUrl(github.baseUrl())
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .requestInterceptor(rateLimitScheduler)
+                .requestInterceptor(githubTokenPool)
+                .build();
+        blockingFetcher = new BlockingRepositoryFetcher(restClient, concurrencyGovernor, 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        blockingFetcher.destroy();
+        github.close();
+    }
+
+    @Test
+    public void testFetchRepositories_SameResultAsReactivePath() {
+        List<RepositoryDetails> reactive = sorted(reactiveFetcher.fetchRepositories("pagedUser", true).collectList().block());
+        int reactiveRequests = github.restRequests();
+
+        List<RepositoryDetails> blocking = sorted(blockingFetcher.fetchRepositories("pagedUser", true).collectList().block());
+
+        assertThat(blocking).hasSize(125).isEqualTo(reactive);
+        assertThat(blocking.get(0).getBranches()).hasSize(120);
+        assertThat(github.restRequests() - reactiveRequests).isEqualTo(reactiveRequests);
+    }
+
+    @Test
+    public void testFetchRepositories_BothEnginesCountTheirUpstreamCalls() {
+        pipelineMetrics.record(reactiveFetcher.fetchRepositories("pagedUser", true)).blockLast();
+        pipelineMetrics.record(blockingFetcher.fetchRepositories("pagedUser", true)).blockLast();
+
+        DistributionSummary upstreamCalls = meterRegistry.get("observer.fetch.upstream.calls").summary();
+        assertThat(upstreamCalls.count()).isEqualTo(2);
+        assertThat(upstreamCalls.totalAmount()).isEqualTo(github.restRequests());
+        assertThat(upstreamCalls.max()).isEqualTo(github.restRequests() / 2.0);
+    }
+
+    @Test
+    public void testFetchRepositories_UnknownUser_ReturnsError() {
+        StepVerifier.create(blockingFetcher.fetchRepositories("unknownUser", false))
+                .expectErrorMatches(throwable -> throwable instanceof UserNotFoundException
+                        && throwable.getMessage().equals("User not found: unknownUser"))
+                .verify();
+    }
+
+    @Test
+    public void testFetchRepositories_WaitsOutRetryAfterAndRetries() {
+        // one rejection per pooled token, so there is no other token to switch to
+        github.withRetryAfter(2, 1);
+
+        StepVerifier.create(blockingFetcher.fetchRepositories("user0", false))
+                .expectNextCount(20)
+                .verifyComplete();
+
+        assertThat(rateLimitScheduler.getDelayed()).isGreaterThanOrEqualTo(1);
+    }
+
+    private static List<RepositoryDetails> sorted(List<RepositoryDetails> repositories) {
+        return repositories.stream().sorted(Comparator.comparing(RepositoryDetails::getName)).toList();
+    }
+}
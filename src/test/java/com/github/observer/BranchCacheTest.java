@@ -0,0 +1,65 @@
+package com.github.observer;
+
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.BlockingRepositoryFetcher;
+import com.github.observer.service.BranchCache;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.RepositoryFetcher;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BranchCacheTest {
+
+    private final GithubStubServer github = new GithubStubServer()
+            .withUser("dormantUser", 100, 3)
+            .withRealisticPayloads();
+    private final UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+    private final BranchCache branchCache = new BranchCache(1000);
+
+    @AfterEach
+    public void tearDown() {
+        github.close();
+    }
+
+    @Test
+    public void testRestFetcher_RefetchesBranchesOnlyOfPushedRepositories() {
+        WebClient webClient = WebClient.builder().baseUrl(github.baseUrl()).build();
+        assertOnlyPushedRepositoriesAreRefetched(new RestRepositoryFetcher(
+                new GithubPaginator(webClient, concurrencyGovernor, 100, 4), concurrencyGovernor, branchCache));
+    }
+
+    @Test
+    public void testBlockingFetcher_RefetchesBranchesOnlyOfPushedRepositories() {
+        RestClient restClient = RestClient.builder()
+                .baseUrl(github.baseUrl())
+                .requestFactory(new JdkClientHttpRequestFactory())
+                .build();
+        assertOnlyPushedRepositoriesAreRefetched(
+                new BlockingRepositoryFetcher(restClient, concurrencyGovernor, branchCache, 100));
+    }
+
+    private void assertOnlyPushedRepositoriesAreRefetched(RepositoryFetcher fetcher) {
+        List<RepositoryDetails> first = fetcher.fetchRepositories("dormantUser", false).collectList().block();
+        assertThat(github.restRequests()).isEqualTo(1 + 50);
+
+        List<RepositoryDetails> second = fetcher.fetchRepositories("dormantUser", false).collectList().block();
+        assertThat(github.restRequests()).isEqualTo(1 + 50 + 1);
+        assertThat(second).containsExactlyInAnyOrderElementsOf(first);
+
+        github.push("dormantUser", "repo0").push("dormantUser", "repo2");
+        List<RepositoryDetails> third = fetcher.fetchRepositories("dormantUser", false).collectList().block();
+        assertThat(github.restRequests()).isEqualTo(1 + 50 + 1 + 1 + 2);
+        assertThat(third).containsExactlyInAnyOrderElementsOf(first);
+        assertThat(branchCache.getHits()).isEqualTo(50 + 48);
+        assertThat(branchCache.getMisses()).isEqualTo(50 + 2);
+    }
+}
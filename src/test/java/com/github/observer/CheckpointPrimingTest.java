@@ -0,0 +1,50 @@
+package com.github.observer;
+
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+public class CheckpointPrimingTest {
+
+    private static final GithubStubServer github = new GithubStubServer();
+
+    @Autowired
+    private CheckpointPriming checkpointPriming;
+
+    @Autowired
+    private StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @DynamicPropertySource
+    static void githubProperties(DynamicPropertyRegistry registry) {
+        registry.add("observer.baseUrl", github::baseUrl);
+        registry.add("observer.github.tokens", () -> "token1");
+    }
+
+    @AfterAll
+    static void stopGithub() {
+        github.close();
+    }
+
+    @Test
+    public void testPrime_RunsPipelineWithoutUpstreamCallsOrSharedState() {
+        checkpointPriming.prime();
+
+        assertThat(github.restRequests()).isZero();
+        assertThat(repositoryDetailsCache.getIfPresent(CheckpointPriming.PRIMING_USER + ":false")).isNull();
+        assertThat(meterRegistry.find("observer.fetch").timer()).isNull();
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.observer;
+
+import com.github.observer.client.AdaptiveTimeouts;
+import com.github.observer.client.ConditionalRequestCache;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.Branch;
+import com.github.observer.model.Commit;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ClientHttpConnector;
+import org.springframework.mock.http.client.reactive.MockClientHttpRequest;
+import org.springframework.mock.http.client.reactive.MockClientHttpResponse;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ConditionalRequestCacheTest {
+
+    private static final String ETAG = "\"abc123\"";
+
+    private final List<ClientRequest> sentRequests = new ArrayList<>();
+
+    @Test
+    public void testNotModified_ServesCachedBody() {
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, Duration.ofHours(1));
+        ExchangeFunction github = githubReturningNotModifiedFor(ETAG);
+
+        StepVerifier.create(exchange(cache, github, "/users/user1/repos"))
+                .expectNext("[{\"name\":\"repo1\"}]")
+                .verifyComplete();
+        StepVerifier.create(exchange(cache, github, "/users/user1/repos"))
+                .expectNext("[{\"name\":\"repo1\"}]")
+                .verifyComplete();
+
+        assertThat(sentRequests).hasSize(2);
+        assertThat(sentRequests.get(0).headers().getIfNoneMatch()).isEmpty();
+        assertThat(sentRequests.get(1).headers().getIfNoneMatch()).containsExactly(ETAG);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        ConditionalRequestCache cache = new ConditionalRequestCache(1, Duration.ofHours(1));
+        ExchangeFunction github = githubReturningNotModifiedFor(ETAG);
+
+        exchange(cache, github, "/users/user1/repos").block();
+        exchange(cache, github, "/users/user2/repos").block();
+        exchange(cache, github, "/users/user1/repos").block();
+
+        assertThat(sentRequests.get(2).headers().getIfNoneMatch()).isEmpty();
+        assertThat(cache.getHits()).isZero();
+        assertThat(cache.getEvictions()).isEqualTo(2);
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiredEntryIsNotRevalidated() {
+        MutableClock clock = new MutableClock();
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, Duration.ofMinutes(5), clock);
+        ExchangeFunction github = githubReturningNotModifiedFor(ETAG);
+
+        exchange(cache, github, "/users/user1/repos").block();
+        clock.advance(Duration.ofMinutes(6));
+        exchange(cache, github, "/users/user1/repos").block();
+
+        assertThat(sentRequests.get(1).headers().getIfNoneMatch()).isEmpty();
+        assertThat(cache.getHits()).isZero();
+    }
+
+    @Test
+    public void testNotModifiedRestartsTheTimeToLive() {
+        MutableClock clock = new MutableClock();
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, Duration.ofMinutes(5), clock);
+        ExchangeFunction github = githubReturningNotModifiedFor(ETAG);
+
+        exchange(cache, github, "/users/user1/repos").block();
+        clock.advance(Duration.ofMinutes(4));
+        exchange(cache, github, "/users/user1/repos").block();
+        clock.advance(Duration.ofMinutes(4));
+        exchange(cache, github, "/users/user1/repos").block();
+
+        assertThat(sentRequests.get(2).headers().getIfNoneMatch()).containsExactly(ETAG);
+        assertThat(cache.getHits()).isEqualTo(2);
+    }
+
+    @Test
+    public void testBodyIsDecodedAsItStreamsThroughTheFilterChain() {
+        ConditionalRequestCache cache = new ConditionalRequestCache(10, Duration.ofHours(1));
+        Sinks.Many<DataBuffer> body = Sinks.many().unicast().onBackpressureBuffer();
+        ClientHttpConnector github = (method, uri, requestCallback) -> {
+            MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+            return requestCallback.apply(request).then(Mono.fromSupplier(() -> {
+                if (request.getHeaders().getIfNoneMatch().contains(ETAG)) {
+                    return new MockClientHttpResponse(HttpStatus.NOT_MODIFIED);
+                }
+                MockClientHttpResponse response = new MockClientHttpResponse(HttpStatus.OK);
+                response.getHeaders().setETag(ETAG);
+                response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+                response.setBody(body.asFlux());
+                return response;
+            }));
+        };
+        // the filters and decoder of the observerWebClient bean, in the same order
+        WebClient webClient = WebClient.builder()
+                .baseUrl("https://api.github.com")
+                .clientConnector(github)
+                .codecs(codecs -> codecs.customCodecs().register(new GithubJsonDecoder()))
+                .filter(cache)
+                .filter(new RateLimitScheduler(50, 500, Duration.ofSeconds(10)))
+                .filter(new GithubTokenPool(List.of("token1")))
+                .filter(new PipelineMetrics(new SimpleMeterRegistry()))
+                .filter(new AdaptiveTimeouts(Duration.ofSeconds(1), Duration.ofSeconds(5), 3, true, 0.05))
+                .build();
+        Branch main = new Branch("main", new Commit("abc"));
+        Branch dev = new Branch("dev", new Commit("def"));
+
+        StepVerifier.create(getBranches(webClient))
+                .then(() -> body.tryEmitNext(buffer("[{\"name\":\"main\",\"commit\":{\"sha\":\"abc\"}},")))
+                .expectNext(main)
+                .then(() -> {
+                    body.tryEmitNext(buffer("{\"name\":\"dev\",\"commit\":{\"sha\":\"def\"}}]"));
+                    body.tryEmitComplete();
+                })
+                .expectNext(dev)
+                .expectComplete()
+                .verify(Duration.ofSeconds(5));
+        StepVerifier.create(getBranches(webClient))
+                .expectNext(main, dev)
+                .verifyComplete();
+
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    private ExchangeFunction githubReturningNotModifiedFor(String etag) {
+        return request -> {
+            sentRequests.add(request);
+            if (request.headers().getIfNoneMatch().contains(etag)) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, etag)
+                    .body("[{\"name\":\"repo1\"}]")
+                    .build());
+        };
+    }
+
+    private static Flux<Branch> getBranches(WebClient webClient) {
+        return webClient.get().uri("/repos/{owner}/{repo}/branches", "user1", "repo1")
+                .retrieve()
+                .bodyToFlux(Branch.class);
+    }
+
+    private static DataBuffer buffer(String json) {
+        return DefaultDataBufferFactory.sharedInstance.wrap(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Mono<String> exchange(ConditionalRequestCache cache, ExchangeFunction github, String path) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com" + path)).build();
+        return cache.filter(request, github).flatMap(response -> response.bodyToMono(String.class));
+    }
+}
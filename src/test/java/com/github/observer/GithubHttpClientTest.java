@@ -0,0 +1,88 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubHttpClient;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GithubHttpClientTest {
+
+    private final GithubStubServer github = new GithubStubServer()
+            .withUser("user1", 50, 1)
+            .withCompression();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private GithubHttpClient githubHttpClient;
+    private WebClient webClient;
+
+    @BeforeEach
+    public void setUp() {
+        Metrics.addRegistry(meterRegistry);
+        githubHttpClient = new GithubHttpClient(github.baseUrl(), 4, 100, Duration.ofSeconds(5),
+                Duration.ofSeconds(30), Duration.ofMinutes(5), Duration.ofSeconds(5), Duration.ofMinutes(5));
+        webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .clientConnector(githubHttpClient.connector())
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        githubHttpClient.stop();
+        Metrics.removeRegistry(meterRegistry);
+        github.close();
+    }
+
+    @Test
+    public void testFanOutSharesABoundedPoolOfWarmConnections() {
+        for (int round = 0; round < 2; round++) {
+            Flux.range(0, 50).flatMap(i -> getBranches("repo" + i), 50).blockLast();
+        }
+
+        assertThat(github.restRequests()).isEqualTo(100);
+        assertThat(github.connections()).isBetween(1, 4);
+        assertThat(poolGauge("reactor.netty.connection.provider.max.connections").value()).isEqualTo(4);
+        assertThat(poolGauge("reactor.netty.connection.provider.total.connections").value()).isBetween(1.0, 4.0);
+        assertThat(poolGauge("reactor.netty.connection.provider.pending.connections").value()).isZero();
+    }
+
+    @Test
+    public void testResponsesAreGzippedOnTheWireAndDecodedOnArrival() {
+        String repositories = webClient.get().uri("/users/{username}/repos", "user1")
+                .retrieve().bodyToMono(String.class).block();
+
+        assertThat(github.compressedResponses()).isEqualTo(1);
+        assertThat(repositories).startsWith("[").contains("\"name\":\"repo0\"");
+    }
+
+    @Test
+    public void testPoolIsRecreatedWhenTheLifecycleRestarts() {
+        getBranches("repo0").block();
+        githubHttpClient.stop();
+        assertThat(githubHttpClient.isRunning()).isFalse();
+
+        githubHttpClient.start();
+        getBranches("repo1").block();
+
+        assertThat(github.restRequests()).isEqualTo(2);
+        assertThat(github.connections()).isEqualTo(2);
+    }
+
+    private Mono<String> getBranches(String repository) {
+        return webClient.get().uri("/repos/{owner}/{repo}/branches", "user1", repository)
+                .retrieve().bodyToMono(String.class);
+    }
+
+    private Gauge poolGauge(String name) {
+        return meterRegistry.get(name).tag("name", "github").gauge();
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.observer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.model.Branch;
+import com.github.observer.model.Commit;
+import com.github.observer.model.Owner;
+import com.github.observer.model.Repository;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.codec.Decoder;
+import org.springframework.core.codec.DecodingException;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GithubJsonDecoderTest {
+
+    private static final ResolvableType REPOSITORY = ResolvableType.forClass(Repository.class);
+    private static final ResolvableType BRANCH = ResolvableType.forClass(Branch.class);
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final GithubJsonDecoder decoder = new GithubJsonDecoder();
+
+    @Test
+    public void testDecode_RepositoriesSplitAcrossBuffers_SameAsJackson() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(repositories(25));
+
+        List<Object> expected = decodeAll(new Jackson2JsonDecoder(objectMapper), json, REPOSITORY, json.length);
+        List<Object> decoded = decodeAll(decoder, json, REPOSITORY, 7);
+
+        assertThat(decoded).hasSize(25).isEqualTo(expected);
+        assertThat(decoded.get(1)).isEqualTo(new Repository("repo1", new Owner("octocat"), true,
+                "2024-01-26T19:06:43Z", "2024-01-26T19:14:43Z"));
+    }
+
+    @Test
+    public void testDecode_SingleBranch() throws Exception {
+        byte[] json = objectMapper.writeValueAsBytes(Map.of("name", "main", "protected", false,
+                "commit", Map.of("sha", "abc123", "url", "https://api.github.com/commits/abc123")));
+
+        StepVerifier.create(decoder.decode(buffers(json, 5), BRANCH, MediaType.APPLICATION_JSON, Map.of()))
+                .expectNext(new Branch("main", new Commit("abc123")))
+                .verifyComplete();
+    }
+
+    @Test
+    public void testDecode_TruncatedInput_ReturnsError() {
+        byte[] json = "[{\"name\":\"main\",\"commit\":{\"sha\":\"abc\"}},{\"name\":\"dev\"".getBytes();
+
+        StepVerifier.create(decoder.decode(buffers(json, 8), BRANCH, MediaType.APPLICATION_JSON, Map.of()))
+                .expectNext(new Branch("main", new Commit("abc")))
+                .expectError(DecodingException.class)
+                .verify();
+    }
+
+    @Test
+    public void testCanDecode_OnlyGithubModels() {
+        assertThat(decoder.canDecode(REPOSITORY, MediaType.APPLICATION_JSON)).isTrue();
+        assertThat(decoder.canDecode(BRANCH, MediaType.valueOf("application/vnd.github+json"))).isTrue();
+        assertThat(decoder.canDecode(ResolvableType.forClass(Map.class), MediaType.APPLICATION_JSON)).isFalse();
+        assertThat(decoder.canDecode(REPOSITORY, MediaType.APPLICATION_XML)).isFalse();
+    }
+
+    private static List<Object> decodeAll(Decoder<?> decoder, byte[] json, ResolvableType type, int chunkSize) {
+        return decoder.decode(buffers(json, chunkSize), type, MediaType.APPLICATION_JSON, Map.of())
+                .collectList()
+                .<List<Object>>map(ArrayList::new)
+                .block();
+    }
+
+    private static Flux<DataBuffer> buffers(byte[] json, int chunkSize) {
+        return Flux.fromIterable(chunks(json, chunkSize)).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    private static List<byte[]> chunks(byte[] json, int chunkSize) {
+        return IntStream.range(0, (json.length + chunkSize - 1) / chunkSize)
+                .mapToObj(i -> Arrays.copyOfRange(json, i * chunkSize, Math.min(json.length, (i + 1) * chunkSize)))
+                .toList();
+    }
+
+    private static List<Map<String, Object>> repositories(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> GithubPayloads.repository("octocat", "repo" + i, i % 2 == 1))
+                .toList();
+    }
+}
@@ -0,0 +1,100 @@
+package com.github.observer;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-size objects shaped like the ones GitHub returns, for tests and benchmarks whose results depend
+ * on payload size rather than on the few fields the service reads.
+ */
+public final class GithubPayloads {
+
+    private GithubPayloads() {
+    }
+
+    /**
+     * A repository as listed by {@code /users/{username}/repos}, about 5 KB once serialized.
+     */
+    public static Map<String, Object> repository(String login, String name, boolean fork) {
+        String api = "https://api.github.com/repos/" + login + "/" + name;
+        Map<String, Object> owner = new LinkedHashMap<>();
+        owner.put("login", login);
+        owner.put("id", 583231);
+        owner.put("node_id", "MDQ6VXNlcjU4MzIzMQ==");
+        owner.put("avatar_url", "https://avatars.githubusercontent.com/u/583231?v=4");
+        owner.put("gravatar_id", "");
+        for (String relation : List.of("url", "html_url", "followers_url", "following_url", "gists_url",
+                "starred_url", "subscriptions_url", "organizations_url", "repos_url", "events_url",
+                "received_events_url")) {
+            owner.put(relation, "https://api.github.com/users/" + login + "/" + relation.replace("_url", ""));
+        }
+        owner.put("type", "User");
+        owner.put("site_admin", false);
+
+        Map<String, Object> repository = new LinkedHashMap<>();
+        repository.put("id", 1296269 + name.hashCode());
+        repository.put("node_id", "MDEwOlJlcG9zaXRvcnkxMjk2MjY5");
+        repository.put("name", name);
+        repository.put("full_name", login + "/" + name);
+        repository.put("private", false);
+        repository.put("owner", owner);
+        repository.put("html_url", "https://github.com/" + login + "/" + name);
+        repository.put("description", "This your first repo! It is used for examples and demos.");
+        repository.put("fork", fork);
+        for (String relation : List.of("url", "forks_url", "keys_url", "collaborators_url", "teams_url",
+                "hooks_url", "issue_events_url", "events_url", "assignees_url", "branches_url", "tags_url",
+                "blobs_url", "git_tags_url", "git_refs_url", "trees_url", "statuses_url", "languages_url",
+                "stargazers_url", "contributors_url", "subscribers_url", "subscription_url", "commits_url",
+                "git_commits_url", "comments_url", "issue_comment_url", "contents_url", "compare_url",
+                "merges_url", "archive_url", "downloads_url", "issues_url", "pulls_url", "milestones_url",
+                "notifications_url", "labels_url", "releases_url", "deployments_url")) {
+            repository.put(relation, api + "/" + relation.replace("_url", "") + "{/number}");
+        }
+        repository.put("created_at", "2011-01-26T19:01:12Z");
+        repository.put("updated_at", "2024-01-26T19:14:43Z");
+        repository.put("pushed_at", "2024-01-26T19:06:43Z");
+        repository.put("git_url", "git://github.com/" + login + "/" + name + ".git");
+        repository.put("ssh_url", "git@github.com:" + login + "/" + name + ".git");
+        repository.put("clone_url", "https://github.com/" + login + "/" + name + ".git");
+        repository.put("svn_url", "https://github.com/" + login + "/" + name);
+        repository.put("homepage", "https://github.com");
+        repository.put("size", 108);
+        repository.put("stargazers_count", 80);
+        repository.put("watchers_count", 80);
+        repository.put("language", "Java");
+        for (String feature : List.of("has_issues", "has_projects", "has_downloads", "has_wiki",
+                "has_pages", "has_discussions", "archived", "disabled", "allow_forking", "is_template",
+                "web_commit_signoff_required")) {
+            repository.put(feature, feature.startsWith("has_"));
+        }
+        repository.put("forks_count", 9);
+        repository.put("mirror_url", null);
+        repository.put("open_issues_count", 0);
+        repository.put("license", Map.of("key", "mit", "name", "MIT License", "spdx_id", "MIT",
+                "url", "https://api.github.com/licenses/mit", "node_id", "MDc6TGljZW5zZW1pdA=="));
+        repository.put("topics", List.of("octocat", "atom", "electron", "api"));
+        repository.put("visibility", "public");
+        repository.put("forks", 9);
+        repository.put("open_issues", 0);
+        repository.put("watchers", 80);
+        repository.put("default_branch", "master");
+        repository.put("permissions", Map.of("admin", false, "maintain", false, "push", false,
+                "triage", false, "pull", true));
+        return repository;
+    }
+
+    /**
+     * A branch as listed by {@code /repos/{owner}/{repo}/branches}.
+     */
+    public static Map<String, Object> branch(String login, String repository, String name, String sha) {
+        Map<String, Object> commit = new LinkedHashMap<>();
+        commit.put("sha", sha);
+        commit.put("url", "https://api.github.com/repos/" + login + "/" + repository + "/commits/" + sha);
+        Map<String, Object> branch = new LinkedHashMap<>();
+        branch.put("name", name);
+        branch.put("commit", commit);
+        branch.put("protected", false);
+        return branch;
+    }
+}
@@ -0,0 +1,407 @@
+package com.github.observer;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.http.server.HttpServerRequest;
+import reactor.netty.http.server.HttpServerResponse;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * In-process stand-in for the parts of the GitHub REST and GraphQL APIs used by the service.
+ * Serves {@code /users/{username}/repos}, {@code /repos/{owner}/{repo}/branches} (both paginated with
+ * {@code Link} headers) and {@code /graphql}, and counts the requests it receives.
+ * REST listings carry only the fields the service reads unless {@link #withRealisticPayloads()} is set.
+ * Response latency, compression, server error rate, page size cap and rate-limit headers can be tuned,
+ * so the same stub also stands in for GitHub in load tests.
+ */
+public class GithubStubServer implements AutoCloseable {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, List<StubRepository>> users = new ConcurrentHashMap<>();
+    private final AtomicInteger restRequests = new AtomicInteger();
+    private final AtomicInteger graphQlRequests = new AtomicInteger();
+    private final Map<String, AtomicInteger> rateLimitRemaining = new ConcurrentHashMap<>();
+    private final AtomicInteger retryAfterResponses = new AtomicInteger();
+    private final AtomicInteger serverErrors = new AtomicInteger();
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger compressedResponses = new AtomicInteger();
+    private final Map<String, byte[]> serializedPages = new ConcurrentHashMap<>();
+    private final Map<String, Instant> pushes = new ConcurrentHashMap<>();
+    private volatile boolean realisticPayloads;
+    private volatile int rateLimit = -1;
+    private volatile int retryAfterSeconds;
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration jitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile int maxPageSize = 100;
+    private volatile boolean compression;
+    private final DisposableServer server;
+
+    public GithubStubServer() {
+        this(0);
+    }
+
+    /**
+     * @param port the port to listen on, or 0 for any free port
+     */
+    public GithubStubServer(int port) {
+        server = HttpServer.create()
+                .host("localhost")
+                .port(port)
+                .doOnChannelInit((observer, channel, address) -> connections.incrementAndGet())
+                .compress((request, response) -> compresses(request))
+                .route(routes -> routes
+                        .get("/users/{username}/repos", (request, response) ->
+                                delayed(() -> repositories(request, response)))
+                        .get("/repos/{owner}/{repo}/branches", (request, response) ->
+                                delayed(() -> branches(request, response)))
+                        .post("/graphql", (request, response) -> delayed(() -> graphQl(request, response))))
+                .bindNow();
+    }
+
+    public String baseUrl() {
+        return "http://localhost:" + server.port();
+    }
+
+    public GithubStubServer withUser(String username, int repositories, int branchesPerRepository) {
+        List<StubRepository> stubRepositories = IntStream.range(0, repositories)
+                .mapToObj(i -> new StubRepository("repo" + i, i % 2 == 1, IntStream.range(0, branchesPerRepository)
+                        .mapToObj(b -> "branch" + b).toList()))
+                .toList();
+        users.put(username, stubRepositories);
+        serializedPages.clear();
+        return this;
+    }
+
+    /**
+     * Serves REST listings with every field GitHub returns, about 5 KB per repository, instead of only
+     * the ones the service reads. Pages are serialized once and then replayed, so the stub's own
+     * cost stays small next to the client's in benchmarks.
+     */
+    public GithubStubServer withRealisticPayloads() {
+        realisticPayloads = true;
+        serializedPages.clear();
+        return this;
+    }
+
+    /**
+     * Moves the repository's {@code pushed_at} to now, as a push to any of its branches does. Only
+     * realistic payloads carry the timestamps.
+     */
+    public GithubStubServer push(String username, String repository) {
+        pushes.put(username + "/" + repository, Instant.now());
+        serializedPages.clear();
+        return this;
+    }
+
+    /**
+     * Enables {@code X-RateLimit-*} headers with the given budget for every token, counted separately per
+     * {@code Authorization} header; once a token's budget is spent its REST calls get {@code 403} with a
+     * zero remaining budget, as GitHub does.
+     */
+    public GithubStubServer withRateLimit(int limit) {
+        rateLimit = limit;
+        rateLimitRemaining.clear();
+        return this;
+    }
+
+    /**
+     * Answers the next {@code responses} REST calls with {@code 429} and the given {@code Retry-After}.
+     */
+    public GithubStubServer withRetryAfter(int responses, int seconds) {
+        retryAfterResponses.set(responses);
+        retryAfterSeconds = seconds;
+        return this;
+    }
+
+    /**
+     * Delays every response by {@code latency} plus a uniformly random extra of up to {@code jitter}.
+     */
+    public GithubStubServer withLatency(Duration latency, Duration jitter) {
+        this.latency = latency;
+        this.jitter = jitter;
+        return this;
+    }
+
+    /**
+     * Answers the given fraction of REST calls with {@code 502 Bad Gateway}, chosen at random.
+     */
+    public GithubStubServer withErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * Caps {@code per_page} below GitHub's limit of 100, so listings take more pages.
+     */
+    public GithubStubServer withMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+        serializedPages.clear();
+        return this;
+    }
+
+    public int restRequests() {
+        return restRequests.get();
+    }
+
+    public int graphQlRequests() {
+        return graphQlRequests.get();
+    }
+
+    public int serverErrors() {
+        return serverErrors.get();
+    }
+
+    public int connections() {
+        return connections.get();
+    }
+
+    public int compressedResponses() {
+        return compressedResponses.get();
+    }
+
+    /**
+     * Gzips responses to requests that accept it, as GitHub does.
+     */
+    public GithubStubServer withCompression() {
+        compression = true;
+        return this;
+    }
+
+    @Override
+    public void close() {
+        server.disposeNow();
+    }
+
+    private boolean compresses(HttpServerRequest request) {
+        boolean compress = compression
+                && request.requestHeaders().containsValue(HttpHeaderNames.ACCEPT_ENCODING, "gzip", true);
+        if (compress) {
+            compressedResponses.incrementAndGet();
+        }
+        return compress;
+    }
+
+    private Mono<Void> repositories(HttpServerRequest request, HttpServerResponse response) {
+        restRequests.incrementAndGet();
+        if (rateLimited(request, response)) {
+            return response.sendString(Mono.just("{\"message\":\"API rate limit exceeded\"}")).then();
+        }
+        if (failed(response)) {
+            return response.sendString(Mono.just("{\"message\":\"Server Error\"}")).then();
+        }
+        String username = request.param("username");
+        List<StubRepository> repositories = users.get(username);
+        if (repositories == null) {
+            return response.status(HttpResponseStatus.NOT_FOUND).sendString(Mono.just("{\"message\":\"Not Found\"}")).then();
+        }
+        return sendPage(request, response, repositories, repository -> realisticPayloads
+                ? realisticRepository(username, repository)
+                : Map.of("name", repository.name(), "fork", repository.fork(), "owner", Map.of("login", username)));
+    }
+
+    private Map<String, Object> realisticRepository(String username, StubRepository repository) {
+        Map<String, Object> json = GithubPayloads.repository(username, repository.name(), repository.fork());
+        Instant pushedAt = pushes.get(username + "/" + repository.name());
+        if (pushedAt != null) {
+            json.put("pushed_at", pushedAt.toString());
+        }
+        return json;
+    }
+
+    private Mono<Void> branches(HttpServerRequest request, HttpServerResponse response) {
+        restRequests.incrementAndGet();
+        if (rateLimited(request, response)) {
+            return response.sendString(Mono.just("{\"message\":\"API rate limit exceeded\"}")).then();
+        }
+        if (failed(response)) {
+            return response.sendString(Mono.just("{\"message\":\"Server Error\"}")).then();
+        }
+        StubRepository repository = find(request.param("owner"), request.param("repo"));
+        if (repository == null) {
+            return response.status(HttpResponseStatus.NOT_FOUND).sendString(Mono.just("{\"message\":\"Not Found\"}")).then();
+        }
+        String owner = request.param("owner");
+        return sendPage(request, response, repository.branches(), branch -> realisticPayloads
+                ? GithubPayloads.branch(owner, repository.name(), branch, sha(repository, branch))
+                : Map.of("name", branch, "commit", Map.of("sha", sha(repository, branch))));
+    }
+
+    private boolean rateLimited(HttpServerRequest request, HttpServerResponse response) {
+        if (retryAfterResponses.getAndUpdate(left -> Math.max(0, left - 1)) > 0) {
+            response.status(HttpResponseStatus.TOO_MANY_REQUESTS).header("Retry-After", String.valueOf(retryAfterSeconds));
+            return true;
+        }
+        if (rateLimit < 0) {
+            return false;
+        }
+        String token = request.requestHeaders().get(HttpHeaderNames.AUTHORIZATION, "");
+        int remaining = rateLimitRemaining.computeIfAbsent(token, t -> new AtomicInteger(rateLimit))
+                .getAndUpdate(left -> Math.max(0, left - 1));
+        response.header("X-RateLimit-Limit", String.valueOf(rateLimit))
+                .header("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining - 1)))
+                .header("X-RateLimit-Reset", String.valueOf(System.currentTimeMillis() / 1000 + 3600))
+                .header("X-RateLimit-Resource", "core");
+        if (remaining <= 0) {
+            response.status(HttpResponseStatus.FORBIDDEN);
+            return true;
+        }
+        return false;
+    }
+
+    private boolean failed(HttpServerResponse response) {
+        if (errorRate <= 0 || ThreadLocalRandom.current().nextDouble() >= errorRate) {
+            return false;
+        }
+        serverErrors.incrementAndGet();
+        response.status(HttpResponseStatus.BAD_GATEWAY);
+        return true;
+    }
+
+    private Mono<Void> delayed(Supplier<Mono<Void>> handler) {
+        long extra = jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toNanos() + 1);
+        Duration delay = latency.plusNanos(extra);
+        return delay.isZero() ? handler.get() : Mono.delay(delay).then(Mono.defer(handler));
+    }
+
+    private <T> Mono<Void> sendPage(HttpServerRequest request, HttpServerResponse response, List<T> items,
+                                    Function<T, Map<String, Object>> toJson) {
+        QueryStringDecoder query = new QueryStringDecoder(request.uri());
+        int perPage = Math.min(maxPageSize, intParam(query, "per_page", 30));
+        int page = intParam(query, "page", 1);
+        int lastPage = Math.max(1, (items.size() + perPage - 1) / perPage);
+        List<T> pageItems = items.subList(Math.min(items.size(), (page - 1) * perPage),
+                Math.min(items.size(), page * perPage));
+        if (lastPage > 1) {
+            response.header("Link", "<" + baseUrl() + query.path() + "?per_page=" + perPage + "&page=" + lastPage
+                    + ">; rel=\"last\"");
+        }
+        if (realisticPayloads) {
+            byte[] json = serializedPages.computeIfAbsent(request.uri(),
+                    uri -> write(pageItems.stream().map(toJson).toList()));
+            return response.header("Content-Type", "application/json").sendByteArray(Mono.just(json)).then();
+        }
+        return sendJson(response, pageItems.stream().map(toJson).toList());
+    }
+
+    private Mono<Void> graphQl(HttpServerRequest request, HttpServerResponse response) {
+        graphQlRequests.incrementAndGet();
+        return request.receive().aggregate().asString().flatMap(payload -> {
+            JsonNode body = read(payload);
+            JsonNode variables = body.path("variables");
+            if (body.path("query").asText().contains("repositoryOwner")) {
+                return sendJson(response, Map.of("data", repositoryOwner(variables)));
+            }
+            return sendJson(response, Map.of("data", Map.of("repository", Map.of("refs",
+                    refs(find(variables.path("owner").asText(), variables.path("name").asText()),
+                            variables.path("refsFirst").asInt(), variables.path("cursor"))))));
+        });
+    }
+
+    private Map<String, Object> repositoryOwner(JsonNode variables) {
+        String login = variables.path("login").asText();
+        List<StubRepository> repositories = users.get(login);
+        Map<String, Object> data = new LinkedHashMap<>();
+        if (repositories == null) {
+            data.put("repositoryOwner", null);
+            return data;
+        }
+        List<StubRepository> matching = repositories.stream()
+                .filter(repository -> repository.fork() == variables.path("isFork").asBoolean())
+                .toList();
+        int first = variables.path("first").asInt();
+        int from = cursor(variables.path("cursor"));
+        int to = Math.min(matching.size(), from + first);
+        List<Map<String, Object>> nodes = new ArrayList<>();
+        for (StubRepository repository : matching.subList(from, to)) {
+            nodes.add(Map.of("name", repository.name(), "owner", Map.of("login", login),
+                    "refs", refs(repository, variables.path("refsFirst").asInt(), null)));
+        }
+        data.put("repositoryOwner", Map.of("repositories", Map.of("pageInfo", pageInfo(to, matching.size()),
+                "nodes", nodes)));
+        return data;
+    }
+
+    private Map<String, Object> refs(StubRepository repository, int first, JsonNode cursor) {
+        int from = cursor(cursor);
+        int to = Math.min(repository.branches().size(), from + first);
+        List<Map<String, Object>> nodes = repository.branches().subList(from, to).stream()
+                .map(branch -> Map.<String, Object>of("name", branch, "target", Map.of("oid", sha(repository, branch))))
+                .toList();
+        return Map.of("pageInfo", pageInfo(to, repository.branches().size()), "nodes", nodes);
+    }
+
+    private static Map<String, Object> pageInfo(int end, int total) {
+        Map<String, Object> pageInfo = new LinkedHashMap<>();
+        pageInfo.put("hasNextPage", end < total);
+        pageInfo.put("endCursor", end < total ? String.valueOf(end) : null);
+        return pageInfo;
+    }
+
+    private StubRepository find(String owner, String name) {
+        return users.getOrDefault(owner, List.of()).stream()
+                .filter(repository -> repository.name().equals(name))
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Mono<Void> sendJson(HttpServerResponse response, Object body) {
+        try {
+            return response.header("Content-Type", "application/json")
+                    .sendByteArray(Mono.just(objectMapper.writeValueAsBytes(body)))
+                    .then();
+        } catch (Exception e) {
+            return Mono.error(e);
+        }
+    }
+
+    private byte[] write(Object body) {
+        try {
+            return objectMapper.writeValueAsBytes(body);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private JsonNode read(String payload) {
+        try {
+            return objectMapper.readTree(payload);
+        } catch (Exception e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    private static int cursor(JsonNode cursor) {
+        return cursor == null || cursor.isNull() || cursor.isMissingNode() ? 0 : Integer.parseInt(cursor.asText());
+    }
+
+    private static int intParam(QueryStringDecoder query, String name, int defaultValue) {
+        List<String> values = query.parameters().get(name);
+        return values == null || values.isEmpty() ? defaultValue : Integer.parseInt(values.get(0));
+    }
+
+    private static String sha(StubRepository repository, String branch) {
+        return Integer.toHexString((repository.name() + "/" + branch).hashCode());
+    }
+
+    private record StubRepository(String name, boolean fork, List<String> branches) {
+    }
+}
@@ -0,0 +1,117 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.exception.RateLimitExceededException;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GithubTokenPoolTest {
+
+    private final Map<String, Integer> quotas = new HashMap<>();
+    private final List<String> usedTokens = new ArrayList<>();
+    private final Set<String> retryAfterTokens = new HashSet<>();
+    private final long resetAt = System.currentTimeMillis() / 1000 + 3600;
+
+    @Test
+    public void testCallsGoToTheTokenWithTheMostHeadroom() {
+        quotas.put("token-a", 10);
+        quotas.put("token-b", 100);
+        GithubTokenPool pool = new GithubTokenPool(List.of("token-a", "token-b"));
+
+        for (int i = 0; i < 5; i++) {
+            exchange(pool).block();
+        }
+
+        assertThat(usedTokens).containsExactly("token-a", "token-b", "token-b", "token-b", "token-b");
+        assertThat(pool.getRemaining("core")).containsValues(9, 96);
+    }
+
+    @Test
+    public void testExhaustedTokenIsSkippedAndItsRejectedCallIsSentWithAnotherToken() {
+        quotas.put("token-a", 0);
+        quotas.put("token-b", 100);
+        GithubTokenPool pool = new GithubTokenPool(List.of("token-a", "token-b"));
+
+        StepVerifier.create(exchange(pool))
+                .expectNextMatches(response -> response.statusCode().is2xxSuccessful())
+                .verifyComplete();
+        exchange(pool).block();
+
+        assertThat(usedTokens).containsExactly("token-a", "token-b", "token-b");
+    }
+
+    @Test
+    public void testAllTokensExhausted_ReturnsRateLimitError() {
+        quotas.put("token-a", 0);
+        GithubTokenPool pool = new GithubTokenPool(List.of("token-a"));
+
+        StepVerifier.create(exchange(pool))
+                .expectNextMatches(response -> response.statusCode().isSameCodeAs(HttpStatus.FORBIDDEN))
+                .verifyComplete();
+        StepVerifier.create(exchange(pool))
+                .expectError(RateLimitExceededException.class)
+                .verify();
+
+        assertThat(usedTokens).containsExactly("token-a");
+    }
+
+    @Test
+    public void testTokenAnsweredWithRetryAfterIsSkippedUntilThePauseEnds() {
+        quotas.put("token-a", 100);
+        quotas.put("token-b", 10);
+        retryAfterTokens.add("token-a");
+        MutableClock clock = new MutableClock();
+        GithubTokenPool pool = new GithubTokenPool(List.of("token-a", "token-b"), clock);
+
+        StepVerifier.create(exchange(pool))
+                .expectNextMatches(response -> response.statusCode().is2xxSuccessful())
+                .verifyComplete();
+        exchange(pool).block();
+        clock.advance(Duration.ofSeconds(61));
+        exchange(pool).block();
+
+        assertThat(usedTokens).containsExactly("token-a", "token-b", "token-b", "token-a");
+    }
+
+    private Mono<ClientResponse> exchange(GithubTokenPool pool) {
+        ClientRequest request = ClientRequest.create(HttpMethod.GET, URI.create("https://api.github.com/users/user1/repos"))
+                .build();
+        return pool.filter(request, github());
+    }
+
+    private ExchangeFunction github() {
+        return request -> {
+            String token = request.headers().getFirst(HttpHeaders.AUTHORIZATION).substring("Bearer ".length());
+            usedTokens.add(token);
+            if (retryAfterTokens.remove(token)) {
+                return Mono.just(ClientResponse.create(HttpStatus.TOO_MANY_REQUESTS)
+                        .header(HttpHeaders.RETRY_AFTER, "60")
+                        .build());
+            }
+            int remaining = quotas.get(token);
+            ClientResponse.Builder response = ClientResponse.create(remaining > 0 ? HttpStatus.OK : HttpStatus.FORBIDDEN)
+                    .header("X-RateLimit-Remaining", String.valueOf(Math.max(0, remaining - 1)))
+                    .header("X-RateLimit-Reset", String.valueOf(resetAt));
+            quotas.put(token, Math.max(0, remaining - 1));
+            return Mono.just(response.build());
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubJsonDecoder;
+import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.GraphQlRepositoryFetcher;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.test.StepVerifier;
+
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class GraphQlRepositoryFetcherTest {
+
+    private GithubStubServer github;
+    private RestRepositoryFetcher restFetcher;
+    private GraphQlRepositoryFetcher graphQlFetcher;
+
+    @BeforeEach
+    public void setUp() {
+        github = new GithubStubServer()
+                .withUser("busyUser", 300, 3)
+                .withUser("branchyUser", 2, 250);
+        WebClient webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .codecs(codecs -> codecs.customCodecs().register(new GithubJsonDecoder()))
+                .build();
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        restFetcher = new RestRepositoryFetcher(new GithubPaginator(webClient, concurrencyGovernor, 100, 4),
+                concurrencyGovernor);
+        graphQlFetcher = new GraphQlRepositoryFetcher(webClient, concurrencyGovernor, 50, 100);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        github.close();
+    }
+
+    @Test
+    public void testFetchRepositories_SameResultAsRestWithFewerRequests() {
+        List<RepositoryDetails> rest = sorted(restFetcher.fetchRepositories("busyUser", false).collectList().block());
+        List<RepositoryDetails> graphQl = sorted(graphQlFetcher.fetchRepositories("busyUser", false).collectList().block());
+
+        assertThat(graphQl).hasSize(150).isEqualTo(rest);
+        assertThat(github.restRequests()).isEqualTo(3 + 150);
+        assertThat(github.graphQlRequests()).isEqualTo(3);
+    }
+
+    @Test
+    public void testFetchRepositories_FollowsBranchPagination() {
+        StepVerifier.create(graphQlFetcher.fetchRepositories("branchyUser", false))
+                .expectNextMatches(repository -> repository.getBranches().size() == 250)
+                .verifyComplete();
+
+        assertThat(github.graphQlRequests()).isEqualTo(1 + 2);
+    }
+
+    @Test
+    public void testFetchRepositories_UnknownUser_ReturnsError() {
+        StepVerifier.create(graphQlFetcher.fetchRepositories("unknownUser", false))
+                .expectErrorMatches(throwable -> throwable instanceof UserNotFoundException
+                        && throwable.getMessage().equals("User not found: unknownUser"))
+                .verify();
+    }
+
+    private static List<RepositoryDetails> sorted(List<RepositoryDetails> repositories) {
+        return repositories.stream().sorted(Comparator.comparing(RepositoryDetails::getName)).toList();
+    }
+}
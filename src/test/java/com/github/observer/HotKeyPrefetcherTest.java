@@ -0,0 +1,153 @@
+package com.github.observer;
+
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.controller.HotKeyPrefetcher;
+import com.github.observer.controller.HotKeySketch;
+import com.github.observer.controller.HotKeySketch.HotKey;
+import com.github.observer.exception.RateLimitExceededException;
+import com.github.observer.metrics.PipelineMetrics;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.NegativeResultCache;
+import com.github.observer.service.ObserverService;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+public class HotKeyPrefetcherTest {
+
+    private final GithubStubServer github = new GithubStubServer()
+            .withUser("hot1", 3, 1)
+            .withUser("hot2", 3, 1)
+            .withUser("cold", 3, 1)
+            .withRateLimit(5000);
+    private final MutableClock clock = new MutableClock();
+    private final HotKeySketch hotKeySketch = new HotKeySketch(100);
+    private final RateLimitScheduler rateLimitScheduler = new RateLimitScheduler(50, 500, Duration.ofSeconds(10));
+    private final StaleWhileRevalidateCache<String, List<RepositoryDetails>> repositoryDetailsCache
+            = new StaleWhileRevalidateCache<>(100, Duration.ofMinutes(5), Duration.ofHours(1), clock);
+    private ObserverService observerService;
+
+    @BeforeEach
+    public void setUp() {
+        PipelineMetrics pipelineMetrics = new PipelineMetrics(new SimpleMeterRegistry());
+        WebClient webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .filter(rateLimitScheduler)
+                .filter(pipelineMetrics)
+                .build();
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(32, 8);
+        observerService = new ObserverService(
+                new RestRepositoryFetcher(new GithubPaginator(webClient, governor, 100, 4), governor),
+                repositoryDetailsCache,
+                new NegativeResultCache(100, Duration.ofMinutes(1), clock),
+                pipelineMetrics);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        github.close();
+    }
+
+    @Test
+    public void testSketchRanksByFrequencyAndForgetsKeysThatCooledDown() {
+        HotKeySketch sketch = new HotKeySketch(10);
+        for (int i = 0; i < 300; i++) {
+            sketch.record("formerlyHot", false);
+            if (i % 10 == 0) {
+                sketch.record("warm", true);
+            }
+        }
+        assertThat(sketch.hottest(2)).containsExactly(new HotKey("formerlyHot", false), new HotKey("warm", true));
+
+        for (int i = 0; i < 300; i++) {
+            sketch.record("nowHot", false);
+        }
+
+        assertThat(sketch.getDecays()).isPositive();
+        assertThat(sketch.hottest(1)).containsExactly(new HotKey("nowHot", false));
+        assertThat(sketch.estimate("formerlyHot", false)).isLessThan(sketch.estimate("nowHot", false) / 4);
+        assertThat(sketch.size()).isLessThanOrEqualTo(10);
+    }
+
+    @Test
+    public void testHotKeysAreRefreshedAheadOfExpiryWithinTheirShareOfTheBudget() {
+        for (int i = 0; i < 5; i++) {
+            hotKeySketch.record("hot1", false);
+        }
+        for (int i = 0; i < 3; i++) {
+            hotKeySketch.record("hot2", false);
+        }
+        hotKeySketch.record("cold", false);
+        for (String username : List.of("hot1", "hot2", "cold")) {
+            observerService.findRepositories(username, false).block();
+        }
+        assertThat(github.restRequests()).isEqualTo(3 * 3);
+
+        // an hour-long tick earns a two-thousandth of the ~5000 remaining calls, less than one refresh of 3 calls
+        HotKeyPrefetcher prefetcher = new HotKeyPrefetcher(hotKeySketch, observerService, rateLimitScheduler,
+                true, Duration.ofHours(1), Duration.ofMinutes(1), 2, 0.0005, Clock.systemUTC());
+        assertThat(prefetcher.prefetch().block()).isZero();
+        assertThat(github.restRequests()).isEqualTo(9);
+
+        clock.advance(Duration.ofSeconds(270));
+        assertThat(prefetcher.prefetch().block()).isEqualTo(1);
+        assertThat(github.restRequests()).isEqualTo(9 + 3);
+        assertThat(prefetcher.prefetch().block()).isEqualTo(1);
+        assertThat(github.restRequests()).isEqualTo(9 + 3 + 3);
+        assertThat(prefetcher.prefetch().block()).isZero();
+        assertThat(prefetcher.getUpstreamCalls()).isEqualTo(6);
+
+        clock.advance(Duration.ofSeconds(60));
+        observerService.findRepositories("hot1", false).block();
+        observerService.findRepositories("hot2", false).block();
+        assertThat(repositoryDetailsCache.getStaleHits()).isZero();
+        observerService.findRepositories("cold", false).block();
+        assertThat(repositoryDetailsCache.getStaleHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRequestDoesNotJoinAnInFlightPrefetchWhenTheBudgetReachesTheBackgroundReserve() {
+        github.withRateLimit(504).withLatency(Duration.ofMillis(200), Duration.ZERO);
+        observerService.findRepositories("cold", false).block();
+        assertThat(rateLimitScheduler.getRemaining("core")).isEqualTo(501);
+
+        // the prefetch's listing call leaves the budget at the background reserve, so its branch calls are shed
+        CompletableFuture<Integer> prefetch = observerService.refreshAhead("hot1", false, Duration.ofMinutes(1))
+                .toFuture();
+        List<RepositoryDetails> repositories = observerService.findRepositories("hot1", false).block();
+
+        assertThat(repositories).hasSize(2);
+        assertThatThrownBy(prefetch::join).hasCauseInstanceOf(RateLimitExceededException.class);
+        assertThat(repositoryDetailsCache.getIfPresent("hot1:false")).isEqualTo(repositories);
+    }
+
+    @Test
+    public void testRequestMissingTheCacheDoesNotJoinTheBranchListingsOfAPrefetch() throws Exception {
+        github.withUser("wide", 1, 150).withRateLimit(506).withLatency(Duration.ofMillis(200), Duration.ZERO);
+        observerService.findRepositories("cold", false).block();
+
+        // with 503 calls left, the prefetch's first branch page is admitted above the background reserve, its second is shed
+        CompletableFuture<Integer> prefetch = observerService.refreshAhead("wide", false, Duration.ofMinutes(1))
+                .toFuture();
+        Thread.sleep(50);
+        List<RepositoryDetails> repositories = observerService.findRepositories("wide", false).block();
+
+        assertThat(repositories).singleElement()
+                .satisfies(repository -> assertThat(repository.getBranches()).hasSize(150));
+        assertThatThrownBy(prefetch::join).hasCauseInstanceOf(RateLimitExceededException.class);
+    }
+}
@@ -0,0 +1,120 @@
+package com.github.observer;
+
+import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntSupplier;
+import java.util.function.LongFunction;
+
+/**
+ * Open-loop HTTP load generator. Requests are started on a fixed schedule at the target rate whether or
+ * not earlier ones have finished, and each latency is measured from the time its request was due, so a
+ * stalled server shows up in the percentiles instead of slowing the generator down.
+ */
+public class LoadDriver implements AutoCloseable {
+
+    private final ConnectionProvider connectionProvider = ConnectionProvider.builder("load-driver")
+            .maxConnections(1000)
+            .pendingAcquireMaxCount(-1)
+            .build();
+    private final WebClient webClient;
+    private final IntSupplier upstreamRequests;
+
+    /**
+     * @param upstreamRequests reads the number of calls the stand-in upstream has received so far
+     */
+    public LoadDriver(String baseUrl, IntSupplier upstreamRequests) {
+        this.webClient = WebClient.builder()
+                .baseUrl(baseUrl)
+                .clientConnector(new ReactorClientHttpConnector(HttpClient.create(connectionProvider)))
+                .build();
+        this.upstreamRequests = upstreamRequests;
+    }
+
+    /**
+     * Sends {@code GET} requests at {@code requestsPerSecond} for {@code duration}; request {@code i} goes to
+     * {@code uris.apply(i)}. Returns once every request has completed or failed.
+     */
+    public Report run(int requestsPerSecond, Duration duration, LongFunction<String> uris) {
+        long count = requestsPerSecond * duration.toSeconds();
+        long intervalNanos = 1_000_000_000L / requestsPerSecond;
+        long[] latencies = new long[(int) count];
+        Map<Integer, AtomicLong> statuses = new ConcurrentHashMap<>();
+        AtomicLong failures = new AtomicLong();
+        int upstreamBefore = upstreamRequests.getAsInt();
+        long start = System.nanoTime();
+
+        Flux.interval(Duration.ofNanos(intervalNanos))
+                .take(count)
+                .onBackpressureBuffer()
+                .flatMap(i -> {
+                    long due = start + (i + 1) * intervalNanos;
+                    return webClient.get()
+                            .uri(uris.apply(i))
+                            .accept(MediaType.APPLICATION_JSON)
+                            .exchangeToMono(response -> response.releaseBody().thenReturn(response.statusCode().value()))
+                            .doOnNext(status -> statuses.computeIfAbsent(status, key -> new AtomicLong()).incrementAndGet())
+                            .onErrorResume(e -> {
+                                failures.incrementAndGet();
+                                return Mono.empty();
+                            })
+                            .doFinally(signal -> latencies[i.intValue()] = System.nanoTime() - due);
+                }, Integer.MAX_VALUE)
+                .blockLast();
+
+        Duration elapsed = Duration.ofNanos(System.nanoTime() - start);
+        Arrays.sort(latencies);
+        Map<Integer, Long> statusCounts = new TreeMap<>();
+        statuses.forEach((status, counter) -> statusCounts.put(status, counter.get()));
+        return new Report(count, failures.get(), statusCounts, elapsed,
+                percentile(latencies, 0.50), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                upstreamRequests.getAsInt() - upstreamBefore);
+    }
+
+    @Override
+    public void close() {
+        connectionProvider.disposeLater().block();
+    }
+
+    private static Duration percentile(long[] sortedNanos, double quantile) {
+        if (sortedNanos.length == 0) {
+            return Duration.ZERO;
+        }
+        int index = (int) Math.ceil(quantile * sortedNanos.length) - 1;
+        return Duration.ofNanos(sortedNanos[Math.max(0, index)]);
+    }
+
+    /**
+     * Outcome of one run. {@code failures} counts requests that got no HTTP response at all.
+     */
+    public record Report(long requests, long failures, Map<Integer, Long> statuses, Duration elapsed,
+                         Duration p50, Duration p99, Duration p999, int upstreamRequests) {
+
+        public double throughput() {
+            return requests * 1_000_000_000.0 / elapsed.toNanos();
+        }
+
+        public long count(int status) {
+            return statuses.getOrDefault(status, 0L);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d requests in %d ms (%.0f req/s), statuses %s, %d failures, "
+                            + "latency p50 %.1f ms, p99 %.1f ms, p999 %.1f ms, %d upstream calls",
+                    requests, elapsed.toMillis(), throughput(), statuses, failures,
+                    p50.toNanos() / 1e6, p99.toNanos() / 1e6, p999.toNanos() / 1e6, upstreamRequests);
+        }
+    }
+}
@@ -1,29 +1,52 @@
 package com.github.observer;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.observer.controller.EncodedResponseCache;
+import com.github.observer.controller.HotKeySketch;
 import com.github.observer.controller.ObserverController;
+import com.github.observer.model.BranchDetails;
 import com.github.observer.model.RepositoryDetails;
 import com.github.observer.service.ObserverService;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.util.ObjectUtils;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.when;
 
+@DisabledInNativeImage
 @ExtendWith(MockitoExtension.class)
 public class ObserverControllerTest {
 
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
     @InjectMocks
     private ObserverController observerController;
 
     @Mock
     private ObserverService observerService;
 
+    @Spy
+    private EncodedResponseCache encodedResponseCache = new EncodedResponseCache(objectMapper, 100, 2048);
+
+    @Spy
+    private HotKeySketch hotKeySketch = new HotKeySketch(100);
+
     @Test
     void testGetGithubRepositories_UserFound_ReturnsRepositories() {
         String username = "testUser";
@@ -33,13 +56,13 @@ public class ObserverControllerTest {
                 new RepositoryDetails("repo2", "owner2", List.of())
         )));
 
-        Mono<ResponseEntity<List<RepositoryDetails>>> result
-                = observerController.getGithubRepositories(username, true);
+        Mono<ResponseEntity<byte[]>> result
+                = observerController.getGithubRepositories(username, true, null);
 
         StepVerifier.create(result)
                 .expectNextMatches(responseEntity -> {
-                    List<RepositoryDetails> repositories = responseEntity.getBody();
-                    return repositories != null && repositories.size() == 2
+                    List<RepositoryDetails> repositories = read(responseEntity.getBody());
+                    return responseEntity.getHeaders().getETag() != null && repositories.size() == 2
                             && repositories.get(0).getName().equals("repo1")
                             && repositories.get(1).getName().equals("repo2");
                 })
@@ -52,12 +75,11 @@ public class ObserverControllerTest {
 
         when(observerService.findRepositories(username, true)).thenReturn(Mono.just(List.of()));
 
-        Mono<ResponseEntity<List<RepositoryDetails>>> result
-                = observerController.getGithubRepositories(username, true);
+        Mono<ResponseEntity<byte[]>> result
+                = observerController.getGithubRepositories(username, true, null);
 
         StepVerifier.create(result)
-                .expectNextMatches(responseEntity ->
-                        ObjectUtils.isEmpty(responseEntity.getBody()))
+                .expectNextMatches(responseEntity -> read(responseEntity.getBody()).isEmpty())
                 .verifyComplete();
     }
 
@@ -67,8 +89,8 @@ public class ObserverControllerTest {
 
         when(observerService.findRepositories(username, true)).thenReturn(Mono.empty());
 
-        Mono<ResponseEntity<List<RepositoryDetails>>> result
-                = observerController.getGithubRepositories(username, true);
+        Mono<ResponseEntity<byte[]>> result
+                = observerController.getGithubRepositories(username, true, null);
 
         StepVerifier.create(result)
                 .expectNextMatches(responseEntity ->
@@ -82,11 +104,70 @@ public class ObserverControllerTest {
 
         when(observerService.findRepositories(username, true)).thenReturn(Mono.error(new RuntimeException()));
 
-        Mono<ResponseEntity<List<RepositoryDetails>>> result
-                = observerController.getGithubRepositories(username, true);
+        Mono<ResponseEntity<byte[]>> result
+                = observerController.getGithubRepositories(username, true, null);
 
         StepVerifier.create(result)
                 .expectErrorMatches(throwable -> throwable instanceof RuntimeException)
                 .verify();
     }
+
+    @Test
+    void testGetGithubRepositories_SameResult_EncodedOnce() {
+        String username = "testUser";
+        List<RepositoryDetails> repositories = List.of(new RepositoryDetails("repo1", "owner1", List.of()));
+        when(observerService.findRepositories(username, false)).thenReturn(Mono.just(repositories));
+
+        ResponseEntity<byte[]> first = observerController.getGithubRepositories(username, false, null).block();
+        ResponseEntity<byte[]> second = observerController.getGithubRepositories(username, false, null).block();
+
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(second.getHeaders().getETag()).isEqualTo(first.getHeaders().getETag()).startsWith("\"");
+        assertThat(encodedResponseCache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetGithubRepositories_UsernamesDifferingInCase_ShareOneKey() {
+        List<RepositoryDetails> repositories = List.of(new RepositoryDetails("repo1", "Octocat", List.of()));
+        when(observerService.findRepositories("Octocat", false)).thenReturn(Mono.just(repositories));
+        when(observerService.findRepositories("octocat", false)).thenReturn(Mono.just(repositories));
+
+        ResponseEntity<byte[]> first = observerController.getGithubRepositories("Octocat", false, null).block();
+        ResponseEntity<byte[]> second = observerController.getGithubRepositories("octocat", false, null).block();
+
+        assertThat(second.getBody()).isSameAs(first.getBody());
+        assertThat(encodedResponseCache.getHits()).isEqualTo(1);
+        assertThat(hotKeySketch.estimate("octocat", false)).isEqualTo(2);
+        assertThat(hotKeySketch.size()).isEqualTo(1);
+    }
+
+    @Test
+    void testGetGithubRepositories_AcceptsGzip_ReturnsCompressedBody() throws Exception {
+        String username = "testUser";
+        List<RepositoryDetails> repositories = IntStream.range(0, 100)
+                .mapToObj(i -> new RepositoryDetails("repo" + i, "owner1", List.of(new BranchDetails("main", "sha" + i))))
+                .toList();
+        when(observerService.findRepositories(username, false)).thenReturn(Mono.just(repositories));
+
+        ResponseEntity<byte[]> plain = observerController.getGithubRepositories(username, false, null).block();
+        ResponseEntity<byte[]> gzip = observerController.getGithubRepositories(username, false, "br;q=1.0, gzip;q=0.8").block();
+
+        assertThat(gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzip.getHeaders().getETag()).isNotEqualTo(plain.getHeaders().getETag());
+        assertThat(gzip.getHeaders().getVary()).containsExactly(HttpHeaders.ACCEPT_ENCODING);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.getBody());
+        }
+        assertThat(observerController.getGithubRepositories(username, false, "gzip;q=0").block()
+                .getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+    }
+
+    private static List<RepositoryDetails> read(byte[] body) {
+        try {
+            return objectMapper.readValue(body, new TypeReference<>() {
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
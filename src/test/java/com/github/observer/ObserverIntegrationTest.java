@@ -1,26 +1,43 @@
 package com.github.observer;
 
+import com.github.observer.controller.EncodedResponseCache;
+import com.github.observer.controller.HotKeySketch;
 import com.github.observer.controller.ObserverController;
+import com.github.observer.exception.RateLimitExceededException;
 import com.github.observer.exception.UserNotFoundException;
 import com.github.observer.model.BranchDetails;
 import com.github.observer.model.RepositoryDetails;
+import com.github.observer.model.BatchResult;
+import com.github.observer.model.RepositoryQuery;
 import com.github.observer.service.ObserverService;
+import com.github.observer.service.RepositoryBatchService;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
+import org.springframework.test.context.aot.DisabledInAotMode;
 import org.springframework.test.context.junit.jupiter.SpringExtension;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import java.time.Duration;
 import java.util.List;
+import java.util.stream.IntStream;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
+@DisabledInAotMode
 @ExtendWith(SpringExtension.class)
 @WebFluxTest(controllers = ObserverController.class)
+@Import({RepositoryBatchService.class, EncodedResponseCache.class, HotKeySketch.class})
 class ObserverIntegrationTest {
 
     @Autowired
@@ -48,6 +65,34 @@ class ObserverIntegrationTest {
                 .contains(repositoryDetails);
     }
 
+    @Test
+    @DisplayName("Should return 304 when If-None-Match carries the current ETag")
+    void findRepositories_MatchingETag_ShouldReturnNotModified() {
+        String username = "validUser";
+        boolean fork = false;
+
+        given(observerService.findRepositories(username, fork)).willReturn(Mono.just(List.of(
+                new RepositoryDetails("repositoryName", "ownerLogin", List.of(new BranchDetails("branchName", "sha"))))));
+
+        String etag = observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .returnResult(String.class)
+                .getResponseHeaders()
+                .getETag();
+
+        assertThat(etag).matches("\"[0-9a-f]{32}\"");
+        observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.APPLICATION_JSON)
+                .ifNoneMatch(etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, etag)
+                .expectBody().isEmpty();
+    }
+
     @Test
     @DisplayName("Should return 404 for non-existing GitHub user with custom message")
     void findRepositories_NonExistingUser_ShouldReturnCustomNotFoundMessage() {
@@ -96,4 +141,124 @@ class ObserverIntegrationTest {
                 .exchange()
                 .expectStatus().isEqualTo(HttpStatus.BAD_REQUEST);
     }
+
+    @Test
+    @DisplayName("Should return 429 with Retry-After when the GitHub rate limit is exhausted")
+    void findRepositories_RateLimitExhausted_ShouldReturnTooManyRequests() {
+        String username = "validUser";
+        boolean fork = true;
+
+        given(observerService.findRepositories(username, fork)).willReturn(Mono.error(
+                new RateLimitExceededException("GitHub rate limit exhausted, retry after 30s", Duration.ofSeconds(30))));
+
+        observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.TOO_MANY_REQUESTS)
+                .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "30")
+                .expectBody()
+                .jsonPath("$.status").isEqualTo(429);
+    }
+
+    @Test
+    @DisplayName("Should stream repositories as NDJSON when Accept header is application/x-ndjson")
+    void streamRepositories_NdjsonAcceptHeader_ShouldStreamRepositories() {
+        String username = "validUser";
+        boolean fork = true;
+
+        RepositoryDetails first = new RepositoryDetails("first", "ownerLogin", List.of(new BranchDetails("main", "sha1")));
+        RepositoryDetails second = new RepositoryDetails("second", "ownerLogin", List.of(new BranchDetails("main", "sha2")));
+        given(observerService.streamRepositories(username, fork)).willReturn(Flux.just(first, second));
+
+        observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(RepositoryDetails.class)
+                .hasSize(2)
+                .contains(first, second);
+    }
+
+    @Test
+    @DisplayName("Should stream repositories as server-sent events when Accept header is text/event-stream")
+    void streamRepositories_EventStreamAcceptHeader_ShouldStreamEvents() {
+        String username = "validUser";
+        boolean fork = true;
+
+        RepositoryDetails repositoryDetails = new RepositoryDetails("repositoryName", "ownerLogin",
+                List.of(new BranchDetails("branchName", "sha")));
+        given(observerService.streamRepositories(username, fork)).willReturn(Flux.just(repositoryDetails));
+
+        observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBodyList(RepositoryDetails.class)
+                .hasSize(1)
+                .contains(repositoryDetails);
+    }
+
+    @Test
+    @DisplayName("Should return a JSON list when any media type is accepted")
+    void findRepositories_AnyAcceptHeader_ShouldReturnJsonList() {
+        String username = "validUser";
+        boolean fork = true;
+
+        RepositoryDetails repositoryDetails = new RepositoryDetails("repositoryName", "ownerLogin",
+                List.of(new BranchDetails("branchName", "sha")));
+        given(observerService.findRepositories(username, fork)).willReturn(Mono.just(List.of(repositoryDetails)));
+
+        observerWebClient.get().uri("/repositories/{username}/{fork}", username, fork)
+                .accept(MediaType.ALL)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectBodyList(RepositoryDetails.class)
+                .hasSize(1)
+                .contains(repositoryDetails);
+    }
+
+    @Test
+    @DisplayName("Should stream one result per distinct user for a batch, errors included")
+    void findRepositoriesBatch_ShouldStreamResultPerDistinctUser() {
+        RepositoryDetails repositoryDetails = new RepositoryDetails("repositoryName", "validUser",
+                List.of(new BranchDetails("branchName", "sha")));
+        given(observerService.findRepositories("validUser", false)).willReturn(Mono.just(List.of(repositoryDetails)));
+        given(observerService.findRepositories("nonExistingUser", false))
+                .willReturn(Mono.error(new UserNotFoundException("User not found: nonExistingUser")));
+
+        List<BatchResult> results = observerWebClient.post().uri("/repositories/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(List.of(new RepositoryQuery("validUser", false), new RepositoryQuery("nonExistingUser", false),
+                        new RepositoryQuery("VALIDUSER", false)))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(BatchResult.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(results).containsExactlyInAnyOrder(
+                new BatchResult("validUser", false, 200, List.of(repositoryDetails), null),
+                new BatchResult("nonExistingUser", false, 404, null, "User not found: nonExistingUser"));
+        verify(observerService, times(1)).findRepositories("validUser", false);
+    }
+
+    @Test
+    @DisplayName("Should return 400 for a batch over the size limit")
+    void findRepositoriesBatch_TooManyUsers_ShouldReturnBadRequest() {
+        List<RepositoryQuery> queries = IntStream.range(0, 101)
+                .mapToObj(i -> new RepositoryQuery("user" + i, true))
+                .toList();
+
+        observerWebClient.post().uri("/repositories/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .bodyValue(queries)
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
 }
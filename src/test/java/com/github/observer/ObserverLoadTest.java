@@ -0,0 +1,101 @@
+package com.github.observer;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives the running application over HTTP at a fixed request rate, with GitHub replaced by a local stub
+ * that adds latency, occasional server errors, short pages and full-size payloads. The defaults keep it
+ * short enough for every build; longer or heavier runs take {@code -Dload.rps}, {@code -Dload.seconds}
+ * and {@code -Dload.users}. The assertions check that every request got a response, that the service kept
+ * serving while upstream calls failed, and that neither a single request nor the tail of the run waited
+ * as long as a whole upstream timeout. A failed assertion carries the full report.
+ */
+@AutoConfigureObservability
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class ObserverLoadTest {
+
+    private static final int RPS = Integer.getInteger("load.rps", 50);
+    private static final int SECONDS = Integer.getInteger("load.seconds", 5);
+    private static final int USERS = Integer.getInteger("load.users", 20);
+    private static final Duration UPSTREAM_TIMEOUT = Duration.ofSeconds(10);
+
+    private static final GithubStubServer github = new GithubStubServer()
+            .withRealisticPayloads()
+            .withLatency(Duration.ofMillis(20), Duration.ofMillis(30))
+            .withErrorRate(0.005)
+            .withMaxPageSize(30)
+            .withRateLimit(1_000_000);
+
+    static {
+        IntStream.range(0, USERS).forEach(i -> github.withUser("user" + i, 20 + i % 40, 1 + i % 10));
+    }
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void githubProperties(DynamicPropertyRegistry registry) {
+        registry.add("observer.baseUrl", github::baseUrl);
+        registry.add("observer.github.tokens", () -> "token1,token2");
+    }
+
+    @AfterAll
+    static void stopGithub() {
+        github.close();
+    }
+
+    @Test
+    public void testRepositories_SteadyLoad() {
+        LoadDriver.Report report;
+        try (LoadDriver driver = new LoadDriver("http://localhost:" + port, github::restRequests)) {
+            report = driver.run(RPS, Duration.ofSeconds(SECONDS),
+                    i -> "/repositories/user" + (i % USERS) + "/" + (i / USERS % 2 == 1));
+        }
+        String description = String.format("%d users at %d req/s with %d upstream errors: %s",
+                USERS, RPS, github.serverErrors(), report);
+
+        assertThat(report.failures()).as(description).isZero();
+        assertThat(report.statuses().values().stream().mapToLong(Long::longValue).sum()).as(description)
+                .isEqualTo(report.requests());
+        assertThat(report.count(200)).as(description).isPositive();
+        assertThat(report.upstreamRequests()).as(description).isPositive();
+        assertThat(report.elapsed()).as(description).isLessThan(Duration.ofSeconds(SECONDS).plus(UPSTREAM_TIMEOUT));
+        assertThat(report.p999()).as(description).isLessThan(UPSTREAM_TIMEOUT);
+    }
+
+    @Test
+    public void testPrometheus_ExposesUpstreamAndPipelineMetrics() {
+        WebTestClient client = WebTestClient.bindToServer()
+                .baseUrl("http://localhost:" + port)
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(16 * 1024 * 1024))
+                .build();
+        client.get().uri("/repositories/user1/false").exchange();
+
+        String scrape = client.get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertThat(scrape)
+                .contains("http_client_requests_seconds_count{", "uri=\"/users/{username}/repos?per_page={perPage}&page={page}\"")
+                .contains("uri=\"/repos/{owner}/{repo}/branches?per_page={perPage}&page={page}\"")
+                .doesNotContain("uri=\"/repos/user1/")
+                .contains("observer_fetch_seconds_count{", "observer_fetch_upstream_calls_count", "observer_json_decode_seconds")
+                .contains("cache_gets_total{cache=\"repository-details\"", "observer_upstream_in_flight")
+                .contains("resilience4j_circuitbreaker_state{");
+    }
+}
@@ -0,0 +1,45 @@
+package com.github.observer;
+
+import com.amazonaws.serverless.proxy.model.CognitoAuthorizerClaims;
+import com.github.observer.exception.RateLimitExceededException;
+import com.github.observer.model.Branch;
+import com.github.observer.model.Commit;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.model.RepositoryQuery;
+import com.github.observer.service.ObserverService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ObserverRuntimeHintsTest {
+
+    private final RuntimeHints hints = new RuntimeHints();
+
+    @BeforeEach
+    public void setUp() {
+        new ObserverRuntimeHints().registerHints(hints, getClass().getClassLoader());
+    }
+
+    @Test
+    public void testRegisterHints_ModelsBoundByJackson() throws Exception {
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(RepositoryDetails.class.getMethod("getBranches")))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(Branch.class.getMethod("setCommit", Commit.class)))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(RepositoryQuery.class.getConstructor()))
+                .accepts(hints);
+    }
+
+    @Test
+    public void testRegisterHints_ResilienceFallbacksAndLambdaHandler() throws Exception {
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(ObserverService.class.getMethod(
+                "fallbackFindRepositories", String.class, boolean.class, Throwable.class))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(RateLimitExceededException.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onConstructor(LambdaHandler.class.getConstructor()))
+                .accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(CognitoAuthorizerClaims.class)).accepts(hints);
+    }
+}
@@ -1,26 +1,47 @@
 package com.github.observer;
 
 import com.github.observer.exception.UserNotFoundException;
+import com.github.observer.metrics.PipelineMetrics;
 import com.github.observer.model.*;
+import com.github.observer.service.GithubPaginator;
+import com.github.observer.service.NegativeResultCache;
 import com.github.observer.service.ObserverService;
+import com.github.observer.service.RestRepositoryFetcher;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
+@DisabledInNativeImage
 @ExtendWith(MockitoExtension.class)
 public class ObserverServiceTest {
 
+    private static final String REPOS_URI = "/users/{username}/repos?per_page={perPage}&page={page}";
+    private static final String BRANCHES_URI = "/repos/{owner}/{repo}/branches?per_page={perPage}&page={page}";
+
     @Mock
     WebClient.RequestHeadersUriSpec requestHeadersUriSpec;
 
@@ -33,9 +54,23 @@ public class ObserverServiceTest {
     @Mock
     WebClient observerWebClient;
 
-    @InjectMocks
+    RestRepositoryFetcher restRepositoryFetcher;
+
     ObserverService observerService;
 
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        restRepositoryFetcher = new RestRepositoryFetcher(
+                new GithubPaginator(observerWebClient, concurrencyGovernor, 100, 4), concurrencyGovernor);
+        observerService = new ObserverService(restRepositoryFetcher,
+                new StaleWhileRevalidateCache<>(100, Duration.ofMinutes(5), Duration.ofHours(1)),
+                new NegativeResultCache(100, Duration.ofMinutes(1), new MutableClock()),
+                new PipelineMetrics(meterRegistry));
+    }
+
     @Test
     public void testFindRepositories_UserFound_ReturnsRepositories() {
         String userName = "user1";
@@ -45,16 +80,16 @@ public class ObserverServiceTest {
         Repository repository1 = new Repository(repo1, new Owner(userName), false);
         Repository repository2 = new Repository(repo2, new Owner(userName), false);
         when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
-        when(requestHeadersUriSpec.uri("/users/{username}/repos", userName))
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
                 .thenReturn(requestHeadersSpec);
-        when(requestHeadersUriSpec.uri("/repos/" + userName + "/"+ repo1 + "/branches"))
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, userName, repo1, 100, 1))
                 .thenReturn(requestHeadersSpec);
-        when(requestHeadersUriSpec.uri("/repos/" + userName + "/"+ repo2 + "/branches"))
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, userName, repo2, 100, 1))
                 .thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
         when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-        when(responseSpec.bodyToFlux(Repository.class)).thenReturn(Flux.just(repository1, repository2));
-        when(responseSpec.bodyToFlux(Branch.class)).thenReturn(Flux.empty());
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of(repository1, repository2))));
+        when(responseSpec.toEntityList(Branch.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
 
         Mono<List<RepositoryDetails>> result = observerService.findRepositories(userName, false);
 
@@ -65,9 +100,12 @@ public class ObserverServiceTest {
                 .verifyComplete();
 
         verify(observerWebClient, times(3)).get();
-        verify(requestHeadersUriSpec, times(1)).uri("/users/{username}/repos", userName);
+        verify(requestHeadersUriSpec, times(1)).uri(REPOS_URI, userName, 100, 1);
         verify(requestHeadersSpec, times(3)).retrieve();
-        verify(responseSpec, times(1)).bodyToFlux(Repository.class);
+        verify(responseSpec, times(1)).toEntityList(Repository.class);
+        assertThat(meterRegistry.get("observer.fetch").tag("outcome", "success").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("observer.fetch.repositories").summary().totalAmount()).isEqualTo(2);
+        assertThat(meterRegistry.get("observer.fetch.branches").summary().totalAmount()).isZero();
     }
 
     @Test
@@ -75,11 +113,11 @@ public class ObserverServiceTest {
         String userName = "userWithNoRepositories";
 
         when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
-        when(requestHeadersUriSpec.uri("/users/{username}/repos", userName))
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
                 .thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
         when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-        when(responseSpec.bodyToFlux(Repository.class)).thenReturn(Flux.empty());
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
 
         Mono<List<RepositoryDetails>> result = observerService.findRepositories(userName, false);
 
@@ -88,9 +126,9 @@ public class ObserverServiceTest {
                 .verifyComplete();
 
         verify(observerWebClient, times(1)).get();
-        verify(requestHeadersUriSpec, times(1)).uri("/users/{username}/repos", userName);
+        verify(requestHeadersUriSpec, times(1)).uri(REPOS_URI, userName, 100, 1);
         verify(requestHeadersSpec, times(1)).retrieve();
-        verify(responseSpec, times(1)).bodyToFlux(Repository.class);
+        verify(responseSpec, times(1)).toEntityList(Repository.class);
     }
 
     @Test
@@ -99,7 +137,7 @@ public class ObserverServiceTest {
         String errorMessage = "User not found: " + userName;
 
         when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
-        when(requestHeadersUriSpec.uri("/users/{username}/repos", userName))
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
                 .thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
         when(responseSpec.onStatus(any(), any())).thenThrow(new UserNotFoundException(errorMessage));
@@ -109,11 +147,95 @@ public class ObserverServiceTest {
                 .hasMessage(errorMessage);
 
         verify(observerWebClient, times(1)).get();
-        verify(requestHeadersUriSpec, times(1)).uri("/users/{username}/repos", userName);
+        verify(requestHeadersUriSpec, times(1)).uri(REPOS_URI, userName, 100, 1);
         verify(requestHeadersSpec, times(1)).retrieve();
         verify(responseSpec, times(1)).onStatus(any(), any());
     }
 
+    @Test
+    public void testFindRepositories_UnknownUserRequestedAgain_DoesNotCallGithub() {
+        String userName = "unknownUser";
+
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Repository.class))
+                .thenReturn(Mono.error(new UserNotFoundException("User not found: " + userName)));
+
+        StepVerifier.create(observerService.findRepositories(userName, false))
+                .expectError(UserNotFoundException.class)
+                .verify();
+        StepVerifier.create(observerService.findRepositories(userName, true))
+                .expectError(UserNotFoundException.class)
+                .verify();
+        StepVerifier.create(observerService.streamRepositories(userName, false))
+                .expectError(UserNotFoundException.class)
+                .verify();
+
+        verify(observerWebClient, times(1)).get();
+    }
+
+    @Test
+    public void testFindRepositories_UnauthorizedThenRetried_IsNotNegativelyCached() {
+        AtomicInteger calls = new AtomicInteger();
+        WebClient webClient = WebClient.builder()
+                .exchangeFunction(request -> {
+                    if (calls.getAndIncrement() == 0) {
+                        return Mono.just(ClientResponse.create(HttpStatus.UNAUTHORIZED)
+                                .body("{\"message\":\"Bad credentials\"}")
+                                .build());
+                    }
+                    String body = request.url().getPath().endsWith("/repos")
+                            ? "[{\"name\":\"repo1\",\"owner\":{\"login\":\"user1\"},\"fork\":false}]"
+                            : "[]";
+                    return Mono.just(ClientResponse.create(HttpStatus.OK)
+                            .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                            .body(body)
+                            .build());
+                })
+                .build();
+        UpstreamConcurrencyGovernor concurrencyGovernor = new UpstreamConcurrencyGovernor(32, 8);
+        observerService = new ObserverService(
+                new RestRepositoryFetcher(new GithubPaginator(webClient, concurrencyGovernor, 100, 4), concurrencyGovernor),
+                new StaleWhileRevalidateCache<>(100, Duration.ofMinutes(5), Duration.ofHours(1)),
+                new NegativeResultCache(100, Duration.ofMinutes(1), new MutableClock()),
+                new PipelineMetrics(meterRegistry));
+
+        StepVerifier.create(observerService.findRepositories("user1", false))
+                .expectError(WebClientResponseException.Unauthorized.class)
+                .verify();
+        StepVerifier.create(observerService.findRepositories("user1", false))
+                .expectNextMatches(repos -> repos.size() == 1 && repos.get(0).getName().equals("repo1"))
+                .verifyComplete();
+
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    public void testFindRepositories_EmptyResponseRequestedAgain_DoesNotCallGithub() {
+        String userName = "userWithNoRepositories";
+
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
+
+        StepVerifier.create(observerService.findRepositories(userName, false))
+                .expectNextMatches(List::isEmpty)
+                .verifyComplete();
+        StepVerifier.create(observerService.findRepositories(userName, false))
+                .expectNextMatches(List::isEmpty)
+                .verifyComplete();
+        StepVerifier.create(observerService.streamRepositories(userName, false))
+                .verifyComplete();
+
+        verify(observerWebClient, times(1)).get();
+    }
+
     @Test
     public void testFindRepositories_WithForks_ReturnsOnlyForks() {
         String userName = "user1";
@@ -123,14 +245,14 @@ public class ObserverServiceTest {
         Repository repository1 = new Repository(repo1, new Owner(userName), true);
         Repository repository2 = new Repository(repo2, new Owner(userName), false);
         when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
-        when(requestHeadersUriSpec.uri("/users/{username}/repos", userName))
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
                 .thenReturn(requestHeadersSpec);
-        when(requestHeadersUriSpec.uri("/repos/" + userName + "/"+ repo1 + "/branches"))
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, userName, repo1, 100, 1))
                 .thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
         when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
-        when(responseSpec.bodyToFlux(Repository.class)).thenReturn(Flux.just(repository1, repository2));
-        when(responseSpec.bodyToFlux(Branch.class)).thenReturn(Flux.empty());
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of(repository1, repository2))));
+        when(responseSpec.toEntityList(Branch.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
 
         Mono<List<RepositoryDetails>> result = observerService.findRepositories(userName, true);
 
@@ -140,25 +262,24 @@ public class ObserverServiceTest {
                 .verifyComplete();
 
         verify(observerWebClient, times(2)).get();
-        verify(requestHeadersUriSpec, times(1)).uri("/users/{username}/repos", userName);
+        verify(requestHeadersUriSpec, times(1)).uri(REPOS_URI, userName, 100, 1);
         verify(requestHeadersSpec, times(2)).retrieve();
-        verify(responseSpec, times(1)).bodyToFlux(Repository.class);
+        verify(responseSpec, times(1)).toEntityList(Repository.class);
     }
 
     @Test
     public void testGetBranches_ReturnsBranchDetails() {
         String userName = "user1";
         String repo1 = "repo1";
-        String repositoryFullName = userName + "/"+ repo1;
         Branch branch = new Branch("main", new Commit("sha123"));
 
         when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
-        when(requestHeadersUriSpec.uri("/repos/" + userName + "/"+ repo1 + "/branches"))
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, userName, repo1, 100, 1))
                 .thenReturn(requestHeadersSpec);
         when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
-        when(responseSpec.bodyToFlux(Branch.class)).thenReturn(Flux.just(branch));
+        when(responseSpec.toEntityList(Branch.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of(branch))));
 
-        Flux<BranchDetails> result = observerService.getBranches(repositoryFullName);
+        Flux<BranchDetails> result = restRepositoryFetcher.getBranches(userName, repo1);
 
         StepVerifier.create(result)
                 .expectNextMatches(branchDetails ->
@@ -167,9 +288,123 @@ public class ObserverServiceTest {
                 .verifyComplete();
 
         verify(observerWebClient, times(1)).get();
-        verify(requestHeadersUriSpec, times(1)).uri("/repos/" + userName + "/"+ repo1 + "/branches");
+        verify(requestHeadersUriSpec, times(1)).uri(BRANCHES_URI, userName, repo1, 100, 1);
         verify(requestHeadersSpec, times(1)).retrieve();
-        verify(responseSpec, times(1)).bodyToFlux(Branch.class);
+        verify(responseSpec, times(1)).toEntityList(Branch.class);
+    }
+
+    @Test
+    public void testGetBranches_MultiplePages_FetchesRemainingPagesInOrder() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.LINK, "<https://api.github.com/repositories/1/branches?per_page=100&page=2>; rel=\"next\", " +
+                "<https://api.github.com/repositories/1/branches?per_page=100&page=3>; rel=\"last\"");
+
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, "user1", "repo1", 100, 1)).thenReturn(requestHeadersSpec);
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, "user1", "repo1", 100, 2)).thenReturn(requestHeadersSpec);
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, "user1", "repo1", 100, 3)).thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Branch.class)).thenReturn(
+                Mono.just(ResponseEntity.ok().headers(headers).body(List.of(new Branch("b1", new Commit("sha1"))))),
+                Mono.just(ResponseEntity.ok(List.of(new Branch("b2", new Commit("sha2"))))),
+                Mono.just(ResponseEntity.ok(List.of(new Branch("b3", new Commit("sha3"))))));
+
+        StepVerifier.create(restRepositoryFetcher.getBranches("user1", "repo1").map(BranchDetails::getName))
+                .expectNext("b1", "b2", "b3")
+                .verifyComplete();
+
+        verify(observerWebClient, times(3)).get();
+        verify(requestHeadersUriSpec, times(1)).uri(BRANCHES_URI, "user1", "repo1", 100, 2);
+        verify(requestHeadersUriSpec, times(1)).uri(BRANCHES_URI, "user1", "repo1", 100, 3);
+    }
+
+    @Test
+    public void testFindRepositories_ConcurrentCallsForSameUser_ShareOneUpstreamCall() {
+        String userName = "user1";
+
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(REPOS_URI, userName, 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.<Repository>of()))
+                .delayElement(Duration.ofMillis(100)));
+
+        Mono<List<RepositoryDetails>> first = observerService.findRepositories(userName, false);
+        Mono<List<RepositoryDetails>> second = observerService.findRepositories(userName, false);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .expectNextMatches(results -> results.getT1().isEmpty() && results.getT1() == results.getT2())
+                .verifyComplete();
+
+        verify(observerWebClient, times(1)).get();
+        verify(responseSpec, times(1)).toEntityList(Repository.class);
+    }
+
+    @Test
+    public void testFindRepositories_UsernamesDifferingInCase_ShareOneFetch() {
+        Repository repository = new Repository("repo1", new Owner("octocat"), false);
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(REPOS_URI, "Octocat", 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersUriSpec.uri(BRANCHES_URI, "octocat", "repo1", 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Repository.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of(repository)))
+                .delayElement(Duration.ofMillis(100)));
+        when(responseSpec.toEntityList(Branch.class)).thenReturn(Mono.just(ResponseEntity.ok(List.of())));
+
+        Mono<List<RepositoryDetails>> first = observerService.findRepositories("Octocat", false);
+        Mono<List<RepositoryDetails>> second = observerService.findRepositories("octocat", false);
+
+        StepVerifier.create(Mono.zip(first, second))
+                .expectNextMatches(results -> results.getT1().size() == 1 && results.getT1() == results.getT2())
+                .verifyComplete();
+        StepVerifier.create(observerService.findRepositories("OCTOCAT", false))
+                .expectNextMatches(repos -> repos.size() == 1)
+                .verifyComplete();
+
+        verify(requestHeadersUriSpec, times(1)).uri(REPOS_URI, "Octocat", 100, 1);
+        verify(observerWebClient, times(2)).get();
+    }
+
+    @Test
+    public void testFindRepositories_UnknownUserRequestedInOtherCase_DoesNotCallGithub() {
+        when(observerWebClient.get()).thenReturn(requestHeadersUriSpec);
+        when(requestHeadersUriSpec.uri(REPOS_URI, "Ghost", 100, 1))
+                .thenReturn(requestHeadersSpec);
+        when(requestHeadersSpec.retrieve()).thenReturn(responseSpec);
+        when(responseSpec.onStatus(any(), any())).thenReturn(responseSpec);
+        when(responseSpec.toEntityList(Repository.class))
+                .thenReturn(Mono.error(new UserNotFoundException("User not found: Ghost")));
+
+        StepVerifier.create(observerService.findRepositories("Ghost", false))
+                .expectError(UserNotFoundException.class)
+                .verify();
+        StepVerifier.create(observerService.streamRepositories("ghost", true))
+                .expectError(UserNotFoundException.class)
+                .verify();
+
+        verify(observerWebClient, times(1)).get();
+    }
+
+    @Test
+    public void testFallbackFindRepositories_ServesCachedRepositories() {
+        String userName = "user1";
+        List<RepositoryDetails> cached = List.of(new RepositoryDetails("repo1", userName, List.of()));
+        StaleWhileRevalidateCache<String, List<RepositoryDetails>> cache =
+                new StaleWhileRevalidateCache<>(100, Duration.ofMinutes(5), Duration.ofHours(1));
+        cache.put(userName + ":" + true, cached);
+        observerService = new ObserverService(restRepositoryFetcher, cache,
+                new NegativeResultCache(100, Duration.ofMinutes(1), new MutableClock()),
+                new PipelineMetrics(meterRegistry));
+
+        StepVerifier.create(observerService.fallbackFindRepositories(userName, true, new RuntimeException("API call failed")))
+                .expectNext(cached)
+                .verifyComplete();
+
+        verifyNoInteractions(observerWebClient);
     }
 
     @Test
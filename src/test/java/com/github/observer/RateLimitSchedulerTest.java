@@ -0,0 +1,147 @@
+package com.github.observer;
+
+import com.github.observer.client.GithubTokenPool;
+import com.github.observer.client.RateLimitScheduler;
+import com.github.observer.exception.RateLimitExceededException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RateLimitSchedulerTest {
+
+    private GithubStubServer github;
+    private RateLimitScheduler rateLimitScheduler;
+    private WebClient webClient;
+
+    @BeforeEach
+    public void setUp() {
+        github = new GithubStubServer().withUser("user1", 2, 1);
+        rateLimitScheduler = new RateLimitScheduler(2, 5, Duration.ofSeconds(2));
+        webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .filter(rateLimitScheduler)
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        github.close();
+    }
+
+    @Test
+    public void testRemainingBudgetIsTrackedFromHeaders() {
+        github.withRateLimit(100);
+
+        getRepositories().block();
+        getRepositories().block();
+
+        assertThat(rateLimitScheduler.getRemaining("core")).isEqualTo(98);
+    }
+
+    @Test
+    public void testBackgroundCallsAreShedBeforeTheBudgetRunsOut() {
+        github.withRateLimit(8);
+
+        for (int i = 0; i < 3; i++) {
+            getRepositories().contextWrite(RateLimitScheduler.background()).block();
+        }
+
+        StepVerifier.create(getRepositories().contextWrite(RateLimitScheduler.background()))
+                .expectError(RateLimitExceededException.class)
+                .verify();
+        StepVerifier.create(getRepositories())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(github.restRequests()).isEqualTo(4);
+        assertThat(rateLimitScheduler.getShed()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInteractiveCallsAreShedAtTheirReserve() {
+        github.withRateLimit(3);
+
+        getRepositories().block();
+
+        StepVerifier.create(getRepositories())
+                .expectErrorMatches(throwable -> throwable instanceof RateLimitExceededException exception
+                        && exception.getRetryAfter().compareTo(Duration.ofMinutes(59)) > 0)
+                .verify();
+        assertThat(github.restRequests()).isEqualTo(1);
+    }
+
+    @Test
+    public void testInteractiveCallIsRetriedAfterRetryAfter() {
+        github.withRetryAfter(1, 1);
+
+        StepVerifier.create(getRepositories())
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(github.restRequests()).isEqualTo(2);
+        assertThat(rateLimitScheduler.getDelayed()).isEqualTo(1);
+    }
+
+    @Test
+    public void testBackgroundCallIsNotRetriedAfterRetryAfter() {
+        github.withRetryAfter(1, 1);
+
+        StepVerifier.create(getRepositories().contextWrite(RateLimitScheduler.background()))
+                .expectError(RateLimitExceededException.class)
+                .verify();
+
+        assertThat(github.restRequests()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemainingBudgetIsSummedAcrossPooledTokens() {
+        github.withRateLimit(100);
+        usePool("token-a", "token-b");
+
+        for (int i = 0; i < 4; i++) {
+            getRepositories().block();
+        }
+
+        assertThat(rateLimitScheduler.getRemaining("core")).isEqualTo(196);
+    }
+
+    @Test
+    public void testRetryAfterOnOnePooledTokenPausesOnlyThatToken() {
+        github.withRetryAfter(1, 60);
+        usePool("token-a", "token-b");
+
+        StepVerifier.create(getRepositories())
+                .expectNextCount(1)
+                .verifyComplete();
+        StepVerifier.create(getRepositories().contextWrite(RateLimitScheduler.background()))
+                .expectNextCount(1)
+                .verifyComplete();
+
+        assertThat(github.restRequests()).isEqualTo(3);
+        assertThat(rateLimitScheduler.getDelayed()).isZero();
+        assertThat(rateLimitScheduler.getShed()).isZero();
+    }
+
+    private void usePool(String... tokens) {
+        webClient = WebClient.builder()
+                .baseUrl(github.baseUrl())
+                .filter(rateLimitScheduler)
+                .filter(new GithubTokenPool(List.of(tokens)))
+                .build();
+    }
+
+    private Mono<String> getRepositories() {
+        return webClient.get()
+                .uri("/users/{username}/repos", "user1")
+                .retrieve()
+                .bodyToMono(String.class);
+    }
+}
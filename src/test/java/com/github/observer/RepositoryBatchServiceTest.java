@@ -0,0 +1,61 @@
+package com.github.observer;
+
+import com.github.observer.model.BatchResult;
+import com.github.observer.model.RepositoryQuery;
+import com.github.observer.service.ObserverService;
+import com.github.observer.service.RepositoryBatchService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledInNativeImage;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
+
+@DisabledInNativeImage
+@ExtendWith(MockitoExtension.class)
+public class RepositoryBatchServiceTest {
+
+    @Mock
+    private ObserverService observerService;
+
+    @Test
+    public void testFindRepositories_RunsAtMostConcurrencyUsersAtOnce() {
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger maxActive = new AtomicInteger();
+        when(observerService.findRepositories(anyString(), eq(false))).thenAnswer(invocation -> Mono.delay(Duration.ofMillis(20))
+                .doOnSubscribe(subscription -> maxActive.accumulateAndGet(active.incrementAndGet(), Math::max))
+                .map(tick -> {
+                    active.decrementAndGet();
+                    return List.of();
+                }));
+        RepositoryBatchService batchService = new RepositoryBatchService(observerService, 100, 3);
+
+        StepVerifier.create(batchService.findRepositories(IntStream.range(0, 10)
+                        .mapToObj(i -> new RepositoryQuery("user" + i, false))
+                        .toList()))
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertThat(maxActive).hasValue(3);
+    }
+
+    @Test
+    public void testFindRepositories_BlankUsername_ReturnsBadRequestResult() {
+        RepositoryBatchService batchService = new RepositoryBatchService(observerService, 100, 3);
+
+        StepVerifier.create(batchService.findRepositories(List.of(new RepositoryQuery(" ", true))))
+                .expectNext(new BatchResult(" ", true, 400, null, "Username must not be blank"))
+                .verifyComplete();
+    }
+}
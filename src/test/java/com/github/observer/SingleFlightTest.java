@@ -0,0 +1,52 @@
+package com.github.observer;
+
+import com.github.observer.service.SingleFlight;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SingleFlightTest {
+
+    private final SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+    private final AtomicInteger calls = new AtomicInteger();
+
+    @Test
+    public void testExecute_ConcurrentCalls_ShareOneSubscription() {
+        Sinks.One<Integer> result = Sinks.one();
+
+        Mono<Integer> first = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return result.asMono();
+        });
+        Mono<Integer> second = singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return result.asMono();
+        });
+
+        StepVerifier.create(Mono.zip(first, second))
+                .then(() -> result.tryEmitValue(1))
+                .expectNextMatches(pair -> pair.getT1() == 1 && pair.getT2() == 1)
+                .verifyComplete();
+        assertThat(calls).hasValue(1);
+        assertThat(singleFlight.inFlightCount()).isZero();
+    }
+
+    @Test
+    public void testExecute_CallMadeOnResult_StartsFresh() {
+        StepVerifier.create(singleFlight.execute("key", this::work)
+                        .flatMap(value -> singleFlight.execute("key", this::work)))
+                .expectNext(2)
+                .verifyComplete();
+
+        assertThat(calls).hasValue(2);
+    }
+
+    private Mono<Integer> work() {
+        return Mono.fromCallable(calls::incrementAndGet);
+    }
+}
@@ -0,0 +1,195 @@
+package com.github.observer;
+
+import com.github.observer.client.ConditionalRequestCache;
+import com.github.observer.model.BranchDetails;
+import com.github.observer.model.RepositoryDetails;
+import com.github.observer.service.StaleWhileRevalidateCache;
+import com.github.observer.snapshot.RepositoryDetailsCodec;
+import com.github.observer.snapshot.SnapshotStore;
+import com.github.observer.snapshot.SnapshotView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.RandomAccessFile;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SnapshotStoreTest {
+
+    private static final List<RepositoryDetails> REPOSITORIES = List.of(
+            new RepositoryDetails("repo1", "user1", List.of(new BranchDetails("main", "abc123"))),
+            new RepositoryDetails("repo2", "user1", List.of()));
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    public void testEntriesSurviveReopening() {
+        Path file = directory.resolve("observer.snapshot");
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            SnapshotView<List<RepositoryDetails>> view = store.view("details:", new RepositoryDetailsCodec());
+            view.save("user1:false", REPOSITORIES, 1_000);
+            view.save("user2:false", REPOSITORIES, 2_000);
+            view.save("user1:false", REPOSITORIES.subList(0, 1), 3_000);
+            view.remove("user2:false");
+        }
+
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            SnapshotView<List<RepositoryDetails>> view = store.view("details:", new RepositoryDetailsCodec());
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(view.load("user1:false")).isEqualTo(new SnapshotView.Stored<>(REPOSITORIES.subList(0, 1), 3_000L));
+            assertThat(view.load("user2:false")).isNull();
+        }
+    }
+
+    @Test
+    public void testCorruptEntryIsDroppedAndTornRecordEndsTheLog() throws Exception {
+        Path file = directory.resolve("observer.snapshot");
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            store.write("user1", 1_000, "first".getBytes(StandardCharsets.UTF_8));
+            store.write("user2", 2_000, "second".getBytes(StandardCharsets.UTF_8));
+        }
+        try (RandomAccessFile raw = new RandomAccessFile(file.toFile(), "rw")) {
+            // flip a payload byte of the first record, and unwrite the length of the second
+            long second = 8 + 19 + 5 + 5;
+            raw.seek(second - 1);
+            raw.write('X');
+            raw.seek(second);
+            raw.writeInt(0);
+        }
+
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            assertThat(store.size()).isEqualTo(1);
+            assertThat(store.read("user1")).isNull();
+            assertThat(store.read("user2")).isNull();
+            assertThat(store.getCorrupted()).isEqualTo(1);
+            assertThat(store.size()).isZero();
+        }
+    }
+
+    @Test
+    public void testFullFileIsCompactedKeepingTheNewestEntries() throws Exception {
+        Path file = directory.resolve("observer.snapshot");
+        byte[] payload = new byte[900];
+        try (SnapshotStore store = new SnapshotStore(file, 8 * 1024)) {
+            for (int i = 0; i < 30; i++) {
+                store.write("user" + (i % 10), i, payload);
+            }
+
+            assertThat(store.getCompactions()).isPositive();
+            assertThat(store.getUsedBytes()).isLessThanOrEqualTo(8 * 1024);
+            assertThat(store.read("user9").storedAt()).isEqualTo(29);
+            assertThat(store.size()).isLessThan(10);
+            assertThat(store.getDropped()).isPositive();
+        }
+        assertThat(Files.size(file)).isEqualTo(8 * 1024);
+        assertThat(Files.exists(directory.resolve("observer.snapshot.compact"))).isFalse();
+    }
+
+    @Test
+    public void testResultCacheStartsWarmFromSnapshot() {
+        Path file = directory.resolve("observer.snapshot");
+        MutableClock clock = new MutableClock();
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            resultCache(clock, store).put("user1:false", REPOSITORIES);
+        }
+        clock.advance(Duration.ofMinutes(10));
+
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            StaleWhileRevalidateCache<String, List<RepositoryDetails>> cache = resultCache(clock, store);
+            StepVerifier.create(cache.get("user1:false", Mono::empty))
+                    .expectNext(REPOSITORIES)
+                    .verifyComplete();
+            assertThat(cache.getRestores()).isEqualTo(1);
+            assertThat(cache.getStaleHits()).isEqualTo(1);
+            assertThat(cache.getMisses()).isZero();
+        }
+    }
+
+    @Test
+    public void testValidatorsSurviveRestart() {
+        Path file = directory.resolve("observer.snapshot");
+        List<ClientRequest> sentRequests = new ArrayList<>();
+        ExchangeFunction github = request -> {
+            sentRequests.add(request);
+            if (request.headers().getIfNoneMatch().contains("\"abc123\"")) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, "\"abc123\"")
+                    .header(HttpHeaders.LINK, "<https://api.github.com/user/1/repos?page=2>; rel=\"next\"")
+                    .body("[{\"name\":\"repo1\"}]")
+                    .build());
+        };
+        ClientRequest request = ClientRequest.create(HttpMethod.GET,
+                URI.create("https://api.github.com/users/user1/repos")).build();
+
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            new ConditionalRequestCache(10, Duration.ofHours(1), new MutableClock(), store)
+                    .filter(request, github).flatMap(response -> response.bodyToMono(String.class)).block();
+        }
+        try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+            ConditionalRequestCache cache = new ConditionalRequestCache(10, Duration.ofHours(1), new MutableClock(), store);
+            StepVerifier.create(cache.filter(request, github))
+                    .assertNext(response -> {
+                        assertThat(response.statusCode()).isEqualTo(HttpStatus.OK);
+                        assertThat(response.headers().header(HttpHeaders.LINK)).hasSize(1);
+                        assertThat(response.bodyToMono(String.class).block()).isEqualTo("[{\"name\":\"repo1\"}]");
+                    })
+                    .verifyComplete();
+            assertThat(cache.getHits()).isEqualTo(1);
+        }
+        assertThat(sentRequests.get(1).headers().getIfNoneMatch()).containsExactly("\"abc123\"");
+    }
+
+    @Test
+    public void testNotModifiedRefreshesTheSnapshottedValidator() {
+        Path file = directory.resolve("observer.snapshot");
+        MutableClock clock = new MutableClock();
+        List<ClientRequest> sentRequests = new ArrayList<>();
+        ExchangeFunction github = request -> {
+            sentRequests.add(request);
+            if (request.headers().getIfNoneMatch().contains("\"abc123\"")) {
+                return Mono.just(ClientResponse.create(HttpStatus.NOT_MODIFIED).build());
+            }
+            return Mono.just(ClientResponse.create(HttpStatus.OK)
+                    .header(HttpHeaders.ETAG, "\"abc123\"")
+                    .body("[{\"name\":\"repo1\"}]")
+                    .build());
+        };
+        ClientRequest request = ClientRequest.create(HttpMethod.GET,
+                URI.create("https://api.github.com/users/user1/repos")).build();
+
+        for (int run = 0; run < 3; run++) {
+            try (SnapshotStore store = new SnapshotStore(file, 64 * 1024)) {
+                new ConditionalRequestCache(10, Duration.ofMinutes(5), clock, store)
+                        .filter(request, github).flatMap(response -> response.bodyToMono(String.class)).block();
+            }
+            clock.advance(Duration.ofMinutes(4));
+        }
+
+        assertThat(sentRequests.get(1).headers().getIfNoneMatch()).containsExactly("\"abc123\"");
+        assertThat(sentRequests.get(2).headers().getIfNoneMatch()).containsExactly("\"abc123\"");
+    }
+
+    private static StaleWhileRevalidateCache<String, List<RepositoryDetails>> resultCache(MutableClock clock,
+                                                                                          SnapshotStore store) {
+        return new StaleWhileRevalidateCache<>(10, Duration.ofMinutes(5), Duration.ofHours(1), clock,
+                store.view("repository-details:", new RepositoryDetailsCodec()));
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.observer;
+
+import com.github.observer.service.StaleWhileRevalidateCache;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class StaleWhileRevalidateCacheTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final StaleWhileRevalidateCache<String, String> cache =
+            new StaleWhileRevalidateCache<>(2, Duration.ofMinutes(5), Duration.ofMinutes(30), clock);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @Test
+    public void testFreshEntryIsServedWithoutLoading() {
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("value1").verifyComplete();
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("value1").verifyComplete();
+
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testStaleEntryIsServedWhileOneBackgroundRefreshRuns() {
+        cache.put("user1", "old");
+        clock.advance(Duration.ofMinutes(10));
+        Sinks.One<String> refresh = Sinks.one();
+
+        StepVerifier.create(cache.get("user1", () -> {
+            loads.incrementAndGet();
+            return refresh.asMono();
+        })).expectNext("old").verifyComplete();
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("old").verifyComplete();
+        refresh.tryEmitValue("new");
+
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("new").verifyComplete();
+        assertThat(loads.get()).isEqualTo(1);
+        assertThat(cache.getStaleHits()).isEqualTo(2);
+        assertThat(cache.getHits()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFailedRefreshKeepsServingStaleEntry() {
+        cache.put("user1", "old");
+        clock.advance(Duration.ofMinutes(10));
+
+        StepVerifier.create(cache.get("user1", () -> Mono.error(new IllegalStateException("GitHub down"))))
+                .expectNext("old")
+                .verifyComplete();
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("old").verifyComplete();
+
+        assertThat(cache.getRefreshFailures()).isEqualTo(1);
+        assertThat(loads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void testExpiredEntryIsLoadedAgain() {
+        cache.put("user1", "old");
+        clock.advance(Duration.ofMinutes(40));
+
+        assertThat(cache.getIfPresent("user1")).isNull();
+        StepVerifier.create(cache.get("user1", this::load)).expectNext("value1").verifyComplete();
+        assertThat(cache.getMisses()).isEqualTo(1);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedEntryIsEvicted() {
+        cache.put("user1", "value1");
+        cache.put("user2", "value2");
+        cache.getIfPresent("user1");
+        cache.put("user3", "value3");
+
+        assertThat(cache.getIfPresent("user2")).isNull();
+        assertThat(cache.getIfPresent("user1")).isEqualTo("value1");
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    private Mono<String> load() {
+        return Mono.fromSupplier(() -> "value" + loads.incrementAndGet());
+    }
+}
@@ -0,0 +1,51 @@
+package com.github.observer;
+
+import com.github.observer.service.UpstreamConcurrencyGovernor;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class UpstreamConcurrencyGovernorTest {
+
+    @Test
+    public void testRun_NeverExceedsMaxConcurrency() {
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(2, 8);
+        AtomicInteger active = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+
+        Flux<Integer> calls = Flux.range(0, 10)
+                .flatMap(i -> governor.run(Mono.fromCallable(() -> peak.accumulateAndGet(active.incrementAndGet(), Math::max))
+                        .delayElement(Duration.ofMillis(20))
+                        .doOnNext(ignored -> active.decrementAndGet())
+                        .thenReturn(i)));
+
+        StepVerifier.create(calls)
+                .expectNextCount(10)
+                .verifyComplete();
+
+        assertThat(peak.get()).isEqualTo(2);
+        assertThat(governor.getAcquisitions()).isEqualTo(10);
+        assertThat(governor.getQueuedAcquisitions()).isEqualTo(8);
+        assertThat(governor.getAvailablePermits()).isEqualTo(2);
+        assertThat(governor.getQueueLength()).isZero();
+    }
+
+    @Test
+    public void testRun_CancelledCallsGiveTheirPermitBack() {
+        UpstreamConcurrencyGovernor governor = new UpstreamConcurrencyGovernor(1, 8);
+
+        governor.run(Mono.never()).subscribe().dispose();
+        governor.run(Mono.never()).subscribe().dispose();
+
+        StepVerifier.create(governor.run(Mono.just("done")))
+                .expectNext("done")
+                .verifyComplete();
+        assertThat(governor.getAvailablePermits()).isEqualTo(1);
+    }
+}